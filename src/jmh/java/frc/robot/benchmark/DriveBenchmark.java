@@ -0,0 +1,51 @@
+package frc.robot.benchmark;
+
+import edu.wpi.first.wpilibj.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.wpilibj.kinematics.SwerveModuleState;
+import java.util.function.DoubleSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.strykeforce.telemetry.measurable.Measure;
+import org.strykeforce.trapper.Trace;
+
+/**
+ * Drive subsystem and trajectory command per-loop work.
+ */
+@State(Scope.Thread)
+public class DriveBenchmark {
+
+  private SwerveDriveKinematics kinematics;
+  private DoubleSupplier[] driveMeasures;
+  private DriveFixture fixture;
+  private double vx;
+
+  @Setup
+  public void setup(DriveFixture fixture) {
+    this.fixture = fixture;
+    kinematics = fixture.driveSubsystem.getSwerveDriveKinematics();
+    driveMeasures = fixture.driveSubsystem.getMeasures().stream()
+        .map(Measure::getMeasurement).toArray(DoubleSupplier[]::new);
+  }
+
+  @Benchmark
+  public SwerveModuleState[] inverseKinematics() {
+    vx = vx > 3.0 ? -3.0 : vx + 0.01;
+    return kinematics.toSwerveModuleStates(new ChassisSpeeds(vx, 0.5, 1.0));
+  }
+
+  @Benchmark
+  public void driveSubsystemMeasures(Blackhole blackhole) {
+    for (DoubleSupplier measure : driveMeasures) {
+      blackhole.consume(measure.getAsDouble());
+    }
+  }
+
+  @Benchmark
+  public Trace driveTrajectoryCommandTrace() {
+    return fixture.driveTrajectoryCommand.getTrace();
+  }
+}
@@ -0,0 +1,39 @@
+package frc.robot.benchmark;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import frc.robot.commands.ActivityCommandGroup;
+import frc.robot.commands.DriveTrajectoryCommand;
+import frc.robot.profiler.LoopProfiler;
+import frc.robot.subsystems.DriveSubsystem;
+import java.util.HashMap;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.strykeforce.trapper.TrapperSubsystem;
+
+/**
+ * Robot objects shared by the benchmarks, built the same way as {@code RobotContainer} but
+ * against the simulated HAL.
+ */
+@State(Scope.Benchmark)
+public class DriveFixture {
+
+  DriveSubsystem driveSubsystem;
+  TrapperSubsystem trapperSubsystem;
+  Trajectory trajectory;
+  DriveTrajectoryCommand driveTrajectoryCommand;
+
+  @Setup
+  public void setup() {
+    HAL.initialize(500, 0);
+    driveSubsystem = new DriveSubsystem(new LoopProfiler());
+    trapperSubsystem = new TrapperSubsystem("http://localhost:3003", true);
+    trajectory = TrajectoryGenerator.generateTrajectory(ActivityCommandGroup.kStartPose,
+        ActivityCommandGroup.kWaypoints, ActivityCommandGroup.kEndPose,
+        ActivityCommandGroup.getTrajectoryConfig());
+    driveTrajectoryCommand = new DriveTrajectoryCommand(driveSubsystem, trapperSubsystem,
+        trajectory, new HashMap<>());
+  }
+}
@@ -0,0 +1,75 @@
+package frc.robot.benchmark;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.commands.ActivityCommandGroup;
+import frc.robot.trajectory.CompiledTrajectory;
+import frc.robot.trajectory.Replanner;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of replanning the {@code ActivityCommandGroup} trajectory after the robot is bumped off
+ * the path halfway through, compared with generating the remainder from scratch. The replan plus
+ * compile time is what {@code DriveTrajectoryCommand} spends in one loop, so it should stay well
+ * under {@code DriveConstants.kReplanBudgetSeconds}.
+ */
+@State(Scope.Thread)
+public class ReplanBenchmark {
+
+  private Replanner replanner;
+  private Translation2d position;
+  private Rotation2d tangent;
+  private double velocity;
+  private List<Translation2d> remainingWaypoints;
+
+  @Setup
+  public void setup() {
+    var config = ActivityCommandGroup.getTrajectoryConfig();
+    var trajectory = TrajectoryGenerator.generateTrajectory(ActivityCommandGroup.kStartPose,
+        ActivityCommandGroup.kWaypoints, ActivityCommandGroup.kEndPose, config);
+    var reference = trajectory.sample(trajectory.getTotalTimeSeconds() / 2.0);
+    position = reference.poseMeters.getTranslation().plus(new Translation2d(0.0, 0.4));
+    tangent = reference.poseMeters.getRotation();
+    velocity = reference.velocityMetersPerSecond;
+
+    replanner = new Replanner(ActivityCommandGroup.kStartPose, ActivityCommandGroup.kWaypoints,
+        ActivityCommandGroup.kEndPose, config);
+    // walk the path so the replanner knows which waypoints are behind
+    for (var state : trajectory.getStates()) {
+      if (state.timeSeconds > reference.timeSeconds) {
+        break;
+      }
+      replanner.update(state.poseMeters.getTranslation());
+    }
+    int next = replanner.getNextWaypoint();
+    remainingWaypoints = ActivityCommandGroup.kWaypoints
+        .subList(Math.min(next - 1, ActivityCommandGroup.kWaypoints.size()),
+            ActivityCommandGroup.kWaypoints.size());
+  }
+
+  @Benchmark
+  public Trajectory replan() {
+    return replanner.replan(position, tangent, velocity, DriveConstants.kReplanMinSegmentMeters);
+  }
+
+  @Benchmark
+  public CompiledTrajectory replanAndCompile() {
+    return new CompiledTrajectory(
+        replanner.replan(position, tangent, velocity, DriveConstants.kReplanMinSegmentMeters));
+  }
+
+  @Benchmark
+  public Trajectory regenerateRemainder() {
+    var config = ActivityCommandGroup.getTrajectoryConfig().setStartVelocity(velocity);
+    return TrajectoryGenerator.generateTrajectory(new Pose2d(position, tangent),
+        remainingWaypoints, ActivityCommandGroup.kEndPose, config);
+  }
+}
@@ -0,0 +1,92 @@
+package frc.robot.benchmark;
+
+import edu.wpi.first.wpilibj.controller.HolonomicDriveController;
+import edu.wpi.first.wpilibj.controller.PIDController;
+import edu.wpi.first.wpilibj.controller.ProfiledPIDController;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrapezoidProfile;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.trajectory.CompiledTrajectory;
+import frc.robot.trajectory.HolonomicController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Trajectory sampling and following on the {@code ActivityCommandGroup} trajectory, comparing the
+ * WPILib classes with the precompiled versions used by {@code DriveTrajectoryCommand}.
+ */
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+
+  private static final double kPeriod = 0.02;
+
+  private Trajectory trajectory;
+  private CompiledTrajectory compiledTrajectory;
+  private HolonomicDriveController holonomicDriveController;
+  private HolonomicController holonomicController;
+  private final Pose2d pose = new Pose2d(3.1, -2.05, Rotation2d.fromDegrees(2.0));
+  private final Rotation2d angleRef = new Rotation2d();
+  private double time;
+
+  @Setup
+  public void setup(DriveFixture fixture) {
+    trajectory = fixture.trajectory;
+    compiledTrajectory = new CompiledTrajectory(trajectory);
+
+    // as configured in DriveTrajectoryCommand
+    var p = 6.0;
+    var d = p / 100.0;
+    holonomicDriveController = new HolonomicDriveController(
+        new PIDController(p, 0, d), new PIDController(p, 0, d),
+        new ProfiledPIDController(-2.5, 0, 0,
+            new TrapezoidProfile.Constraints(DriveConstants.kMaxOmega / 2.0, 3.14)));
+    holonomicDriveController.setEnabled(true);
+    holonomicController = new HolonomicController(
+        new PIDController(p, 0, d), new PIDController(p, 0, d),
+        new ProfiledPIDController(-2.5, 0, 0,
+            new TrapezoidProfile.Constraints(DriveConstants.kMaxOmega / 2.0, 3.14)));
+  }
+
+  private double nextTime() {
+    time += kPeriod;
+    if (time > trajectory.getTotalTimeSeconds()) {
+      time = 0.0;
+    }
+    return time;
+  }
+
+  @Benchmark
+  public Trajectory.State trajectorySample() {
+    return trajectory.sample(nextTime());
+  }
+
+  @Benchmark
+  public void compiledTrajectorySample(Blackhole blackhole) {
+    int index = compiledTrajectory.indexOf(nextTime());
+    blackhole.consume(compiledTrajectory.getX(index));
+    blackhole.consume(compiledTrajectory.getY(index));
+    blackhole.consume(compiledTrajectory.getHeading(index));
+    blackhole.consume(compiledTrajectory.getVelocity(index));
+  }
+
+  @Benchmark
+  public ChassisSpeeds holonomicDriveControllerCalculate() {
+    return holonomicDriveController.calculate(pose, trajectory.sample(nextTime()), angleRef);
+  }
+
+  @Benchmark
+  public void holonomicControllerCalculate(Blackhole blackhole) {
+    int index = compiledTrajectory.indexOf(nextTime());
+    holonomicController.calculate(pose.getX(), pose.getY(), pose.getRotation().getRadians(),
+        compiledTrajectory, index, 0.0);
+    blackhole.consume(holonomicController.getVx());
+    blackhole.consume(holonomicController.getVy());
+    blackhole.consume(holonomicController.getOmega());
+  }
+}
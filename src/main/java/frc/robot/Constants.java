@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 public final class Constants {
 
   public final static int kTalonConfigTimeout = 10; // ms
+  public final static int kTalonConfigReadTimeout = 50; // ms, per parameter read back
   private static final Logger logger = LoggerFactory.getLogger(Constants.class);
 
   public static final class DriveConstants {
@@ -42,6 +43,24 @@ public final class Constants {
     public static final double kDriveGearRatio =
         (kDriveMotorOutputGear / kDriveInputGear) * (kBevelInputGear / kBevelOutputGear);
 
+    // Run odometry on its own thread, 100-250 Hz is reasonable
+    public static final boolean kOdometryThreadEnabled = false;
+    public static final double kOdometryPeriodSeconds = 1.0 / 200.0;
+    public static final int kPoseHistoryCapacity = 256;
+
+    // Module setpoints within these of the last one sent aren't written, except every refresh
+    public static final double kSetpointSpeedEpsilon = 0.005; // m/s
+    public static final double kSetpointAngleEpsilonRadians = Math.toRadians(0.25);
+    public static final double kSetpointRefreshSeconds = 0.1;
+
+    // Trajectory replanning when odometry strays from the reference
+    public static final double kTrajectoryWaitSeconds = 2.0;
+    public static final double kReplanErrorMeters = 0.3;
+    public static final double kReplanCooldownSeconds = 0.5;
+    public static final double kReplanMinSegmentMeters = 0.2;
+    public static final double kReplanBudgetSeconds = 0.004;
+    public static final int kReplanMaxCount = 3;
+
     static {
       logger.debug("kMaxOmega = {}", kMaxOmega);
     }
@@ -0,0 +1,72 @@
+package frc.robot;
+
+import frc.robot.NotifierRobot.OverrunPolicy;
+import frc.robot.profiler.LoopProfiler;
+
+/**
+ * Works out when each {@link NotifierRobot} cycle starts and applies its {@link OverrunPolicy}.
+ * Separate from the robot base so the timing can be tested without the HAL.
+ */
+final class CycleSchedule {
+
+  private final long periodMicros;
+  private final OverrunPolicy overrunPolicy;
+  private LoopProfiler loopProfiler;
+  private int catchUpCycles;
+  private int shedCycles;
+
+  CycleSchedule(long periodMicros, OverrunPolicy overrunPolicy) {
+    this.periodMicros = periodMicros;
+    this.overrunPolicy = overrunPolicy;
+  }
+
+  void setLoopProfiler(LoopProfiler loopProfiler) {
+    this.loopProfiler = loopProfiler;
+  }
+
+  OverrunPolicy getOverrunPolicy() {
+    return overrunPolicy;
+  }
+
+  boolean isShedding() {
+    return shedCycles > 0;
+  }
+
+  /**
+   * Counts a finished cycle against the shed window.
+   */
+  void cycleDone() {
+    if (shedCycles > 0) {
+      shedCycles--;
+    }
+  }
+
+  /**
+   * Returns when the cycle after the one scheduled at {@code expiration} should start, given that
+   * it ended at {@code end}, and applies the overrun policy if it ran long.
+   */
+  long nextExpiration(long expiration, long end) {
+    long next = expiration + periodMicros;
+    if (end < next) {
+      catchUpCycles = 0;
+      return next;
+    }
+    long missed = (end - expiration) / periodMicros;
+    if (overrunPolicy == OverrunPolicy.CATCH_UP
+        && ++catchUpCycles <= NotifierRobot.kMaxCatchUpCycles) {
+      // already due, so the alarm fires immediately
+      if (loopProfiler != null) {
+        loopProfiler.recordOverrun(0);
+      }
+      return next;
+    }
+    catchUpCycles = 0;
+    if (overrunPolicy == OverrunPolicy.SHED) {
+      shedCycles = NotifierRobot.kShedCycles;
+    }
+    if (loopProfiler != null) {
+      loopProfiler.recordOverrun(missed);
+    }
+    return expiration + (missed + 1) * periodMicros;
+  }
+}
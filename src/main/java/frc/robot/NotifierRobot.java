@@ -0,0 +1,127 @@
+package frc.robot;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.hal.NotifierJNI;
+import edu.wpi.first.wpilibj.IterativeRobotBase;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Threads;
+import frc.robot.profiler.LoopProfiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Alternative to {@code TimedRobot} that runs the robot loop on the main thread at real-time
+ * priority, woken by a HAL notifier alarm, and defines what happens when a cycle overruns its
+ * period.
+ *
+ * <p>Each cycle is scheduled at a fixed multiple of the period from the first, so jitter does not
+ * accumulate. How late each cycle starts and how long it runs are recorded in the {@link
+ * LoopProfiler} given to {@link #setLoopProfiler(LoopProfiler)}, along with overruns and skipped
+ * cycles.
+ */
+public abstract class NotifierRobot extends IterativeRobotBase {
+
+  static final int kMainThreadPriority = 15;
+  static final int kNotifierThreadPriority = 40;
+  static final int kMaxCatchUpCycles = 5;
+  static final int kShedCycles = 50;
+
+  private static final Logger logger = LoggerFactory.getLogger(NotifierRobot.class);
+
+  /**
+   * What to do when a cycle runs past the start of the next one.
+   */
+  public enum OverrunPolicy {
+    /**
+     * Drop the missed cycles and resume on the next period boundary.
+     */
+    SKIP,
+    /**
+     * Run the missed cycles back to back, up to {@link #kMaxCatchUpCycles} in a row, then skip.
+     */
+    CATCH_UP,
+    /**
+     * Skip like {@link #SKIP} and shed low-priority work for the next {@link #kShedCycles} cycles.
+     */
+    SHED
+  }
+
+  private final int notifier = NotifierJNI.initializeNotifier();
+  private final long periodMicros;
+  private final CycleSchedule schedule;
+  private LoopProfiler loopProfiler;
+
+  protected NotifierRobot(double period, OverrunPolicy overrunPolicy) {
+    super(period);
+    periodMicros = (long) (period * 1e6);
+    schedule = new CycleSchedule(periodMicros, overrunPolicy);
+    NotifierJNI.setNotifierName(notifier, "NotifierRobot");
+  }
+
+  /**
+   * Records loop timing in {@code loopProfiler}, typically set at the end of {@code robotInit()}.
+   */
+  protected void setLoopProfiler(LoopProfiler loopProfiler) {
+    this.loopProfiler = loopProfiler;
+    schedule.setLoopProfiler(loopProfiler);
+  }
+
+  /**
+   * Returns true while low-priority work such as telemetry and console updates should be skipped
+   * to let the loop recover from an overrun.
+   */
+  protected boolean isShedding() {
+    return schedule.isShedding();
+  }
+
+  public OverrunPolicy getOverrunPolicy() {
+    return schedule.getOverrunPolicy();
+  }
+
+  @Override
+  public void startCompetition() {
+    robotInit();
+    if (isSimulation()) {
+      simulationInit();
+    }
+    elevatePriority();
+    HAL.observeUserProgramStarting();
+
+    long expiration = RobotController.getFPGATime() + periodMicros;
+    while (true) {
+      NotifierJNI.updateNotifierAlarm(notifier, expiration);
+      long start = NotifierJNI.waitForNotifierAlarm(notifier);
+      if (start == 0) {
+        break;
+      }
+      loopFunc();
+      schedule.cycleDone();
+      long end = RobotController.getFPGATime();
+      if (loopProfiler != null) {
+        loopProfiler.recordCycle(start - expiration, end - start);
+      }
+      expiration = schedule.nextExpiration(expiration, end);
+    }
+  }
+
+  @Override
+  public void endCompetition() {
+    NotifierJNI.stopNotifier(notifier);
+  }
+
+  @Override
+  public void close() {
+    NotifierJNI.stopNotifier(notifier);
+    NotifierJNI.cleanNotifier(notifier);
+  }
+
+  private static void elevatePriority() {
+    if (!Notifier.setHALThreadPriority(true, kNotifierThreadPriority)) {
+      logger.warn("unable to set HAL notifier thread priority");
+    }
+    if (!Threads.setCurrentThreadPriority(true, kMainThreadPriority)) {
+      logger.warn("unable to give the main thread real-time priority");
+    }
+  }
+}
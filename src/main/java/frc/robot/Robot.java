@@ -7,19 +7,26 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.talon.StatusFrameProfile;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
  * each mode, as described in the TimedRobot documentation. If you change the name of this class or
  * the package after creating this project, you must also update the build.gradle file in the
  * project.
+ *
+ * <p>The loop runs on a {@link NotifierRobot} and sheds telemetry after an overrun.
  */
-public class Robot extends TimedRobot {
+public class Robot extends NotifierRobot {
 
   private Command m_autonomousCommand;
 
   private RobotContainer m_robotContainer;
 
+  public Robot() {
+    super(TimedRobot.kDefaultPeriod, OverrunPolicy.SHED);
+  }
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
@@ -29,6 +36,7 @@ public class Robot extends TimedRobot {
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+    setLoopProfiler(m_robotContainer.getLoopProfiler());
   }
 
   /**
@@ -44,7 +52,19 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    var loopProfiler = m_robotContainer.getLoopProfiler();
+    loopProfiler.beginLoop();
     CommandScheduler.getInstance().run();
+    loopProfiler.endLoop();
+    if (isEnabled()) {
+      // disabled time would only crowd enabled runs out of the retained segments
+      m_robotContainer.getFlightRecorder().record();
+    }
+    boolean shedding = isShedding();
+    m_robotContainer.setShedding(shedding);
+    if (!shedding) {
+      m_robotContainer.getDrivePacketPublisher().publish();
+    }
   }
 
   /**
@@ -52,6 +72,8 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void disabledInit() {
+    m_robotContainer.setStatusFrameProfile(StatusFrameProfile.DISABLED);
+    m_robotContainer.logTelemetryRates();
   }
 
   @Override
@@ -63,6 +85,7 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void autonomousInit() {
+    m_robotContainer.setStatusFrameProfile(StatusFrameProfile.AUTONOMOUS_TRAJECTORY);
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     // schedule the autonomous command (example)
@@ -80,6 +103,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
+    m_robotContainer.setStatusFrameProfile(StatusFrameProfile.TELEOP);
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
@@ -99,6 +123,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void testInit() {
+    m_robotContainer.setStatusFrameProfile(StatusFrameProfile.DIAGNOSTICS);
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
   }
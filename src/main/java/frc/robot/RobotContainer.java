@@ -4,6 +4,7 @@
 
 package frc.robot;
 
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.Joystick;
 import edu.wpi.first.wpilibj.RobotController;
@@ -17,12 +18,27 @@ import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.NetworkButton;
 import frc.robot.Constants.DriveConstants;
 import frc.robot.commands.ActivityCommandGroup;
+import frc.robot.console.ConsoleCanvas;
+import frc.robot.profiler.InputLatency;
+import frc.robot.profiler.InputLatency.Stage;
+import frc.robot.profiler.LoopProfiler;
+import frc.robot.recorder.FlightRecorder;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.talon.StatusFrameProfile;
+import frc.robot.telemetry.DrivePacketPublisher;
+import frc.robot.telemetry.MeasureScheduler;
+import frc.robot.telemetry.MeasureScheduler.Sampling;
+import frc.robot.trajectory.TrajectoryRegistry;
+import frc.robot.trapper.TrapperBundle;
+import frc.robot.trapper.TrapperUploader;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.strykeforce.console.ConsoleSubsystem;
 import org.strykeforce.telemetry.TelemetryController;
 import org.strykeforce.telemetry.TelemetryService;
+import org.strykeforce.telemetry.measurable.TalonFXMeasurable;
+import org.strykeforce.telemetry.measurable.TalonSRXMeasurable;
 import org.strykeforce.trapper.TrapperSubsystem;
 
 
@@ -31,36 +47,95 @@ public class RobotContainer {
   private static final Logger logger = LoggerFactory.getLogger(RobotContainer.class);
 
   private final static double kJoystickDeadband = 0.1;
+  private final static String kTrapperUrl = "http://192.168.3.3:3003";
+  // needs a Trapper server with the bundles endpoint, see TrapperBundle
+  private final static boolean kTrapperBundleUpload = false;
 
   // The robot's subsystems and commands are defined here...
+  private final LoopProfiler loopProfiler = new LoopProfiler();
+  private final InputLatency inputLatency = loopProfiler.getInputLatency();
   private final TelemetryService telemetryService = new TelemetryService(TelemetryController::new);
   private final ConsoleSubsystem consoleSubsystem = new ConsoleSubsystem(false);
-  private final DriveSubsystem driveSubsystem = new DriveSubsystem(telemetryService);
-  private final TrapperSubsystem trapperSubsystem = new TrapperSubsystem("http://192.168.3.3:3003",
-      false);
+  private final ConsoleCanvas consoleCanvas = new ConsoleCanvas(consoleSubsystem);
+  private final MeasureScheduler measureScheduler = new MeasureScheduler();
+  private final DriveSubsystem driveSubsystem = new DriveSubsystem(loopProfiler);
+  private final TrapperSubsystem trapperSubsystem = new TrapperSubsystem(kTrapperUrl, false);
+  private final TrapperUploader trapperUploader = new TrapperUploader(kTrapperUrl);
+  private final FlightRecorder flightRecorder = new FlightRecorder();
   private final Joystick joystick = new Joystick(0);
+  private final TrajectoryRegistry trajectoryRegistry = new TrajectoryRegistry();
   private final ActivityCommandGroup activityCommandGroup = new ActivityCommandGroup(
-      trapperSubsystem, driveSubsystem);
+      trapperSubsystem, trapperUploader, driveSubsystem, trajectoryRegistry);
+  private final DrivePacketPublisher drivePacketPublisher = new DrivePacketPublisher(
+      driveSubsystem, activityCommandGroup.getDriveTrajectoryCommand());
 
 
   public RobotContainer() {
     configureButtonBindings();
+    loopProfiler.installButtonsMarker();
+    inputLatency.startPacketMonitor();
 
-    driveSubsystem.setDefaultCommand(new RunCommand(
+    var driveCommand = createDriveCommand(driveSubsystem, joystick, inputLatency);
+    driveSubsystem.setDefaultCommand(driveCommand);
+
+    loopProfiler.track(driveCommand, "DriveCommand");
+    loopProfiler.track(activityCommandGroup, "ActivityCommandGroup");
+
+    registerTelemetry();
+
+    flightRecorder.register(driveSubsystem);
+    flightRecorder.register(activityCommandGroup.getDriveTrajectoryCommand());
+    flightRecorder.start();
+
+    if (trapperSubsystem.isEnabled()) {
+      if (kTrapperBundleUpload) {
+        trapperUploader.setBundleOptions(TrapperBundle.Options.DEFAULT);
+      }
+      trapperUploader.start();
+    }
+  }
+
+
+  /**
+   * Creates the default teleop command, driving field-oriented from the left stick and rotating
+   * from the right stick.
+   */
+  static RunCommand createDriveCommand(DriveSubsystem driveSubsystem, Joystick joystick,
+      InputLatency inputLatency) {
+    return new RunCommand(
         () -> {
-          double vx = getLeftX() * -DriveConstants.kMaxSpeedMetersPerSecond;
-          double vy = getLeftY() * -DriveConstants.kMaxSpeedMetersPerSecond;
-          double omega = getRightY() * DriveConstants.kMaxOmega;
+          inputLatency.mark(Stage.COMMAND_EXECUTE);
+          double vx = readAxis(joystick, Axis.LEFT_X, inputLatency)
+              * -DriveConstants.kMaxSpeedMetersPerSecond;
+          double vy = readAxis(joystick, Axis.LEFT_Y, inputLatency)
+              * -DriveConstants.kMaxSpeedMetersPerSecond;
+          double omega = readAxis(joystick, Axis.RIGHT_Y, inputLatency) * DriveConstants.kMaxOmega;
           driveSubsystem.drive(vx, vy, omega);
         }
-        , driveSubsystem));
+        , driveSubsystem);
+  }
 
-    telemetryService.register(driveSubsystem);
-    telemetryService.register(activityCommandGroup.getDriveTrajectoryCommand());
+  private void registerTelemetry() {
+    telemetryService.register(measureScheduler.schedule(loopProfiler, Sampling.NORMAL));
+    telemetryService.register(measureScheduler.schedule(driveSubsystem, Sampling.LOOP, Map.of(
+        "Estimated CAN Load (%)", Sampling.DIAGNOSTIC,
+        "Suppressed Setpoint Writes", Sampling.DIAGNOSTIC)));
+    telemetryService.register(measureScheduler.schedule(
+        activityCommandGroup.getDriveTrajectoryCommand(), Sampling.LOOP));
+    var talonOverrides = Map.of(
+        "Temperature", Sampling.DIAGNOSTIC,
+        "Firmware Version", Sampling.DIAGNOSTIC);
+    for (var module : driveSubsystem.getTalonSwerveModules()) {
+      telemetryService.register(measureScheduler.schedule(
+          new TalonSRXMeasurable(module.getAzimuthTalon()), Sampling.NORMAL, talonOverrides));
+      telemetryService.register(measureScheduler.schedule(
+          new TalonFXMeasurable((TalonFX) module.getDriveTalon()), Sampling.NORMAL, talonOverrides));
+    }
+    telemetryService.register(measureScheduler);
+    measureScheduler.start();
     telemetryService.start();
   }
 
-
   private void configureButtonBindings() {
     new Button(RobotController::getUserButton).whenPressed(new PrintCommand("user button pressed"));
 
@@ -82,6 +157,38 @@ public class RobotContainer {
   }
 
 
+  public LoopProfiler getLoopProfiler() {
+    return loopProfiler;
+  }
+
+  public FlightRecorder getFlightRecorder() {
+    return flightRecorder;
+  }
+
+  public DrivePacketPublisher getDrivePacketPublisher() {
+    return drivePacketPublisher;
+  }
+
+  /**
+   * Logs achieved telemetry sampling rates and any measures falling short of their requested rate.
+   */
+  public void logTelemetryRates() {
+    measureScheduler.logRates();
+  }
+
+  /**
+   * Sheds or restores low-priority telemetry sampling and console updates while the robot loop
+   * recovers from an overrun.
+   */
+  public void setShedding(boolean shedding) {
+    measureScheduler.setShedding(shedding);
+    consoleCanvas.setShedding(shedding);
+  }
+
+  public void setStatusFrameProfile(StatusFrameProfile profile) {
+    driveSubsystem.setStatusFrameProfile(profile);
+  }
+
   /**
    * Use this to pass the autonomous command to the main {@link Robot} class.
    *
@@ -96,29 +203,26 @@ public class RobotContainer {
    * Left stick X (up-down) axis.
    */
   public double getLeftX() {
-    double val = joystick.getRawAxis(Axis.LEFT_X.id);
-    if (Math.abs(val) < kJoystickDeadband) {
-      return 0.0;
-    }
-    return val;
+    return readAxis(joystick, Axis.LEFT_X, inputLatency);
   }
 
   /**
    * Left stick Y (left-right) axis.
    */
   public double getLeftY() {
-    double val = joystick.getRawAxis(Axis.LEFT_Y.id);
-    if (Math.abs(val) < kJoystickDeadband) {
-      return 0.0;
-    }
-    return val;
+    return readAxis(joystick, Axis.LEFT_Y, inputLatency);
   }
 
   /**
    * Right stick Y (left-right) axis.
    */
   public double getRightY() {
-    double val = joystick.getRawAxis(Axis.RIGHT_Y.id);
+    return readAxis(joystick, Axis.RIGHT_Y, inputLatency);
+  }
+
+  private static double readAxis(Joystick joystick, Axis axis, InputLatency inputLatency) {
+    inputLatency.mark(Stage.AXIS_READ);
+    double val = joystick.getRawAxis(axis.id);
     if (Math.abs(val) < kJoystickDeadband) {
       return 0.0;
     }
@@ -134,7 +238,7 @@ public class RobotContainer {
     LEFT_BACK(4),
     RIGHT_BACK(3);
 
-    private final int id;
+    final int id;
 
     Axis(int id) {
       this.id = id;
@@ -4,58 +4,59 @@ import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.geometry.Translation2d;
 import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
-import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.trajectory.Replanner;
+import frc.robot.trajectory.TrajectoryRegistry;
+import frc.robot.trapper.TrapperRun;
+import frc.robot.trapper.TrapperUploader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import org.strykeforce.trapper.Action;
 import org.strykeforce.trapper.Activity;
-import org.strykeforce.trapper.PostCommand;
 import org.strykeforce.trapper.TrapperSubsystem;
 
 public class ActivityCommandGroup extends SequentialCommandGroup {
 
+  public static final Pose2d kStartPose = new Pose2d(3, -2, new Rotation2d());
+  public static final List<Translation2d> kWaypoints = Arrays.asList(
+      new Translation2d(4.5, -1.5),
+      new Translation2d(4.5, -2.5),
+      new Translation2d(1.5, -1.5),
+      new Translation2d(1.5, -2.5)
+  );
+  //  public static final Pose2d kEndPose = new Pose2d(3, 0, new Rotation2d());
+  //  public static final List<Translation2d> kWaypoints =
+  //      Collections.singletonList(new Translation2d(1, 0));
+  public static final Pose2d kEndPose = new Pose2d(3, -2, new Rotation2d());
+
   private final DriveSubsystem driveSubsystem;
   private final TrapperSubsystem trapperSubsystem;
   private final DriveTrajectoryCommand driveTrajectoryCommand;
-  private Activity activity = new Activity("ActivityCommandGroup");
-  private Action action;
+  private final Activity activity = new Activity("ActivityCommandGroup");
 
 
-  public ActivityCommandGroup(TrapperSubsystem trapperSubsystem, DriveSubsystem driveSubsystem) {
+  public ActivityCommandGroup(TrapperSubsystem trapperSubsystem, TrapperUploader trapperUploader,
+      DriveSubsystem driveSubsystem, TrajectoryRegistry trajectoryRegistry) {
     this.driveSubsystem = driveSubsystem;
     this.trapperSubsystem = trapperSubsystem;
 
     addRequirements(trapperSubsystem, driveSubsystem);
-    driveTrajectoryCommand = createDriveTrajectoryCommand();
+    driveTrajectoryCommand = createDriveTrajectoryCommand(trajectoryRegistry);
     addCommands(driveTrajectoryCommand);
 
     if (trapperSubsystem.isEnabled()) {
       activity.getMeta().put("description", "Jif trajectory following");
-      addCommands(
-          new PostCommand(trapperSubsystem,
-              () -> trapperSubsystem.postAsync(activity),
-              interrupted -> activity = trapperSubsystem.getActivity())
-          ,
-          new PostCommand(trapperSubsystem,
-              () -> {
-                action = driveTrajectoryCommand.getAction();
-                action.setActivity(activity.getUrl());
-                trapperSubsystem.postAsync(action);
-              },
-              interrupted -> action = trapperSubsystem.getAction()),
-          new PostCommand(trapperSubsystem,
-              () -> {
-                var traces = driveTrajectoryCommand.getTraces();
-                traces.forEach(t -> t.setAction(action.getId()));
-                trapperSubsystem.post(traces);
-              },
-              interrupted -> {
-              })
-      );
+      addCommands(new InstantCommand(() -> {
+        if (!driveTrajectoryCommand.hasTrajectory()) {
+          return;
+        }
+        var action = driveTrajectoryCommand.getAction();
+        trapperUploader.submit(TrapperRun.of(activity.getName(), activity.getMeta(),
+            action.getName(), action.getMeta(), driveTrajectoryCommand.getTraceBuffer()));
+      }));
     }
   }
 
@@ -63,35 +64,36 @@ public class ActivityCommandGroup extends SequentialCommandGroup {
     return driveTrajectoryCommand;
   }
 
-  private DriveTrajectoryCommand createDriveTrajectoryCommand() {
+  public static TrajectoryConfig getTrajectoryConfig() {
     var config = new TrajectoryConfig(1.5, 6);
 //    config.setKinematics(driveSubsystem.getSwerveDriveKinematics());
+    return config;
+  }
 
-    Pose2d start = new Pose2d(3, -2, new Rotation2d());
-    List<Translation2d> waypoints = Arrays.asList(
-        new Translation2d(4.5, -1.5),
-        new Translation2d(4.5, -2.5),
-        new Translation2d(1.5, -1.5),
-        new Translation2d(1.5, -2.5)
-    );
-//    Pose2d end = new Pose2d(3, 0, new Rotation2d());
-//    List<Translation2d> waypoints = Collections.singletonList(new Translation2d(1, 0));
-    Pose2d end = new Pose2d(3, -2, new Rotation2d());
+  private DriveTrajectoryCommand createDriveTrajectoryCommand(
+      TrajectoryRegistry trajectoryRegistry) {
+    var config = getTrajectoryConfig();
+    Pose2d start = kStartPose;
+    List<Translation2d> waypoints = kWaypoints;
+    Pose2d end = kEndPose;
 
-    var trajectory = TrajectoryGenerator.generateTrajectory(start, waypoints, end, config);
+    var trajectory = trajectoryRegistry
+        .declare("ActivityCommandGroup", start, waypoints, end, config);
 
     var meta = new HashMap<String, Object>();
     meta.put("name", "Trajectory Testing");
     meta.put("description", "2.0m x-direction trajectory");
     meta.put("version", "a30f0b6");
     meta.put("simulator", Boolean.FALSE);
-    meta.put("trajectoryTime", trajectory.getTotalTimeSeconds());
     var trajectoryMeta = new HashMap<String, Object>();
     trajectoryMeta.put("startPose", start);
     trajectoryMeta.put("waypoints", waypoints);
     trajectoryMeta.put("endPose", end);
     meta.put("trajectory", trajectoryMeta);
 
-    return new DriveTrajectoryCommand(driveSubsystem, trapperSubsystem, trajectory, meta);
+    var command = new DriveTrajectoryCommand(driveSubsystem, trapperSubsystem, trajectory::get,
+        meta);
+    command.setReplanner(new Replanner(start, waypoints, end, config));
+    return command;
   }
 }
@@ -1,86 +1,95 @@
 package frc.robot.commands;
 
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.StartEndCommand;
+import frc.robot.console.ConsoleCanvas;
 import frc.robot.subsystems.DriveSubsystem;
 import java.util.ArrayList;
 import java.util.List;
 import org.strykeforce.console.ConsoleSubsystem;
-import org.strykeforce.console.Font;
-import org.strykeforce.swerve.TalonSwerveModule;
 import org.strykeforce.telemetry.measurable.Measure;
 
+/**
+ * Shows a few screens on the console OLED, five seconds each. Screens are redrawn every loop so
+ * readouts stay live, and the display is cleared as each screen ends.
+ */
 public class ConsoleExampleCommand extends SequentialCommandGroup {
 
   private final ConsoleSubsystem consoleSubsystem;
+  private final ConsoleCanvas canvas;
   private int counter = 0;
 
-  public ConsoleExampleCommand(ConsoleSubsystem consoleSubsystem, DriveSubsystem driveSubsystem) {
+  /**
+   * @param canvas a canvas over {@code consoleSubsystem}, shared so it can be shed with other
+   *               low-priority work
+   */
+  public ConsoleExampleCommand(ConsoleSubsystem consoleSubsystem, ConsoleCanvas canvas,
+      DriveSubsystem driveSubsystem) {
     this.consoleSubsystem = consoleSubsystem;
-    List<ConsoleMeasure> measures = new ArrayList<>();
-    var modules = driveSubsystem.getSwerveModules();
-    for (int i = 0; i < 4; i++) {
-      var module = (TalonSwerveModule) modules[i];
-      var azimuthTalon = module.getAzimuthTalon();
+    this.canvas = canvas;
+    List<Measure> absolute = new ArrayList<>();
+    List<Measure> relative = new ArrayList<>();
+    var modules = driveSubsystem.getTalonSwerveModules();
+    for (int i = 0; i < modules.size(); i++) {
+      var azimuthTalon = modules.get(i).getAzimuthTalon();
       var azimuthName = String.format("azimuth %d", i);
-      measures.add(new ConsoleMeasure(new Measure(azimuthName,
-          () -> azimuthTalon.getSensorCollection().getPulseWidthPosition() & 0xFFF)));
-      measures.add(new ConsoleMeasure(new Measure(azimuthName,
-          () -> ((int) azimuthTalon.getSelectedSensorPosition()) & 0xFFF)));
+      absolute.add(new Measure(azimuthName,
+          () -> azimuthTalon.getSensorCollection().getPulseWidthPosition() & 0xFFF));
+      relative.add(new Measure(azimuthName,
+          () -> ((int) azimuthTalon.getSelectedSensorPosition()) & 0xFFF));
     }
     addRequirements(consoleSubsystem);
     double timeout = 5.0;
     addCommands(
-        new StartEndCommand(() -> consoleSubsystem.writeStringCentered("Stryke Force", 5
-        ),
-            consoleSubsystem::clear).withTimeout(timeout),
-        new StartEndCommand(() -> {
-          consoleSubsystem.writeStringCentered("Counter", 5);
-          consoleSubsystem.writeString(String.format("counter = %d", counter), 0, 18, false);
-          consoleSubsystem.writeString(String.format("counter = %d", ++counter), 0, 18);
-        }, consoleSubsystem::clear).withTimeout(timeout),
-        new StartEndCommand(() -> {
-          consoleSubsystem.writeStringCentered("Azimuth Pos.", 5);
-          int y = 2 * Font.FONT_5X8.getOuterHeight();
-          for (int i = 0; i < 4; i++) {
-            var m = measures.get(2 * i + 1);
-            var line = String.format("%s = %d", m.measure.getName(),
-                (int) m.measure.getMeasurement().getAsDouble());
-            consoleSubsystem.writeString(m.previous, 2, y, false);
-            consoleSubsystem.writeString(line, 2, y);
-            m.previous = line;
-            y += Font.FONT_5X8.getOuterHeight();
-          }
-        }, consoleSubsystem::clear).withTimeout(timeout),
-        new StartEndCommand(() -> {
-          consoleSubsystem.writeStringCentered("Azimuth Abs. Pos.", 5);
-          int y = 2 * Font.FONT_5X8.getOuterHeight();
-          for (int i = 0; i < 4; i++) {
-            var m = measures.get(2 * i);
-            var line = String.format("%s = %d", m.measure.getName(),
-                (int) m.measure.getMeasurement().getAsDouble());
-            consoleSubsystem.writeString(m.previous, 2, y, false);
-            consoleSubsystem.writeString(line, 2, y);
-            m.previous = line;
-            y += Font.FONT_5X8.getOuterHeight();
-          }
-        }, consoleSubsystem::clear).withTimeout(timeout)
+        screen(() -> {
+          canvas.clear();
+          canvas.printCentered(0, "Stryke Force");
+          canvas.flush();
+        }).withTimeout(timeout),
+        // counts once per showing of the screen
+        screen(() -> counter++, () -> {
+          canvas.clear();
+          canvas.printCentered(0, "Counter");
+          canvas.print(canvas.print(0, 2, "counter = "), 2, counter);
+          canvas.flush();
+        }).withTimeout(timeout),
+        screen(() -> drawMeasures("Azimuth Pos.", relative)).withTimeout(timeout),
+        screen(() -> drawMeasures("Azimuth Abs. Pos.", absolute)).withTimeout(timeout)
     );
   }
 
-  @Override
-  public void end(boolean interrupted) {
-    super.end(interrupted);
-    consoleSubsystem.clear();
+  private Command screen(Runnable draw) {
+    return screen(() -> {
+    }, draw);
   }
 
-  private static class ConsoleMeasure {
+  /**
+   * Returns a command that runs {@code start} once, then {@code draw} every loop, and clears the
+   * display when it ends or is interrupted.
+   */
+  private Command screen(Runnable start, Runnable draw) {
+    return new FunctionalCommand(start, draw, interrupted -> clearDisplay(), () -> false);
+  }
 
-    Measure measure;
-    String previous = "";
+  /**
+   * Clears the display directly, so the canvas must forget what it had drawn.
+   */
+  private void clearDisplay() {
+    consoleSubsystem.clear();
+    canvas.clear();
+    canvas.invalidate();
+  }
 
-    public ConsoleMeasure(Measure measure) {
-      this.measure = measure;
+  private void drawMeasures(String title, List<Measure> measures) {
+    canvas.clear();
+    canvas.printCentered(0, title);
+    for (int i = 0; i < measures.size(); i++) {
+      var m = measures.get(i);
+      int column = canvas.print(0, i + 2, m.getName());
+      column = canvas.print(column, i + 2, " = ");
+      canvas.print(column, i + 2, (long) m.getMeasurement().getAsDouble());
     }
+    canvas.flush();
   }
 }
@@ -1,19 +1,26 @@
 package frc.robot.commands;
 
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.controller.HolonomicDriveController;
 import edu.wpi.first.wpilibj.controller.PIDController;
 import edu.wpi.first.wpilibj.controller.ProfiledPIDController;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
-import edu.wpi.first.wpilibj.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj.trajectory.Trajectory;
-import edu.wpi.first.wpilibj.trajectory.Trajectory.State;
 import edu.wpi.first.wpilibj.trajectory.TrapezoidProfile;
 import frc.robot.Constants.DriveConstants;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.trajectory.CompiledTrajectory;
+import frc.robot.trajectory.HolonomicController;
+import frc.robot.trajectory.Replanner;
+import frc.robot.trapper.TraceBuffer;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,20 +35,65 @@ public class DriveTrajectoryCommand extends ActionCommand implements Measurable
   private static final Logger logger = LoggerFactory.getLogger(DriveTrajectoryCommand.class);
 
   private final DriveSubsystem driveSubsystem;
-  private final Trajectory trajectory;
+  private final Supplier<? extends Future<CompiledTrajectory>> trajectorySource;
+  private volatile CompiledTrajectory compiledTrajectory = CompiledTrajectory.EMPTY;
   private final Timer timer = new Timer();
   private boolean isTimerStarted;
-  private HolonomicDriveController holonomicDriveController;
-  private Trajectory.State state = new State();
+  private final HolonomicController holonomicController;
+  private TraceBuffer traceBuffer;
+  private Future<CompiledTrajectory> pendingTrajectory;
+  private double requestedSeconds;
+  private boolean hasTrajectory;
+  private boolean trajectoryFailed;
+  private volatile boolean running;
+  private Replanner replanner;
+  private int replanCount;
+  private boolean replanDisabled;
+  private boolean traceBufferFull;
+  private double lastReplanSeconds;
+  private double replanTimeOffset;
+  private volatile int index;
   private Pose2d odometryPose = new Pose2d();
-  private ChassisSpeeds speeds = new ChassisSpeeds();
 
   public DriveTrajectoryCommand(DriveSubsystem driveSubsystem, TrapperSubsystem trapperSubsystem,
       Trajectory trajectory, Map<String, Object> meta) {
+    this(driveSubsystem, trapperSubsystem, ready(new CompiledTrajectory(trajectory)), meta);
+  }
+
+  private static Supplier<Future<CompiledTrajectory>> ready(CompiledTrajectory trajectory) {
+    var future = CompletableFuture.completedFuture(trajectory);
+    return () -> future;
+  }
+
+  /**
+   * Enables replanning: when odometry is more than {@code kReplanErrorMeters} from the reference,
+   * the rest of the path is regenerated from the current pose and swapped in without stopping.
+   * The replanner must describe the same path as the trajectory being followed.
+   *
+   * <p>Each replan restarts the trajectory timer, so a run replans at most {@code
+   * kReplanMaxCount} times to make sure it ends. Replanning also stops for the rest of the run
+   * after one replan takes longer than {@code kReplanBudgetSeconds}.
+   */
+  public void setReplanner(Replanner replanner) {
+    this.replanner = replanner;
+  }
+
+  public int getReplanCount() {
+    return replanCount;
+  }
+
+  /**
+   * Follows a trajectory that may still be generating, such as one from a {@code
+   * TrajectoryRegistry} handle. The trajectory is requested in {@link #initialize()} and polled
+   * each {@link #execute()} until it's ready, so the robot loop never blocks on generation. The
+   * command ends without driving if generation fails or takes longer than {@code
+   * kTrajectoryWaitSeconds}.
+   */
+  public DriveTrajectoryCommand(DriveSubsystem driveSubsystem, TrapperSubsystem trapperSubsystem,
+      Supplier<? extends Future<CompiledTrajectory>> trajectorySource, Map<String, Object> meta) {
     super(trapperSubsystem);
     this.driveSubsystem = driveSubsystem;
-    this.trajectory = trajectory;
-    logger.info("loaded trajectory with total time = {} sec", trajectory.getTotalTimeSeconds());
+    this.trajectorySource = trajectorySource;
 
     addRequirements(driveSubsystem, trapperSubsystem);
 
@@ -63,38 +115,237 @@ public class DriveTrajectoryCommand extends ActionCommand implements Measurable
       measures.add("od_pose_y");
       measures.add("od_pose_degrees");
     }
-    timer.start();
-  }
 
-  @Override
-  public void initialize() {
     var p = 6.0;
     var d = p / 100.0;
-    holonomicDriveController = new HolonomicDriveController(
+    holonomicController = new HolonomicController(
         new PIDController(p, 0, d), new PIDController(p, 0, d),
         new ProfiledPIDController(-2.5, 0, 0,
             new TrapezoidProfile.Constraints(DriveConstants.kMaxOmega / 2.0, 3.14)));
+    timer.start();
+  }
 
-    holonomicDriveController.setEnabled(true);
+  @Override
+  public void initialize() {
+    index = 0;
+    compiledTrajectory = CompiledTrajectory.EMPTY;
+    hasTrajectory = false;
+    trajectoryFailed = false;
+    pendingTrajectory = trajectorySource.get();
+    requestedSeconds = Timer.getFPGATimestamp();
+    startIfReady();
+  }
+
+  /**
+   * Starts following the requested trajectory once it's generated.
+   */
+  private void startIfReady() {
+    if (!pendingTrajectory.isDone()) {
+      if (Timer.getFPGATimestamp() - requestedSeconds > DriveConstants.kTrajectoryWaitSeconds) {
+        logger.error("trajectory not ready after {} sec, not driving",
+            DriveConstants.kTrajectoryWaitSeconds);
+        trajectoryFailed = true;
+      }
+      return;
+    }
+    try {
+      compiledTrajectory = pendingTrajectory.get();
+    } catch (ExecutionException | CancellationException e) {
+      logger.error("trajectory unavailable, not driving", e);
+      trajectoryFailed = true;
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      trajectoryFailed = true;
+      return;
+    }
+    hasTrajectory = true;
+    running = true;
+    logger.info("loaded trajectory with total time = {} sec",
+        compiledTrajectory.getTotalTimeSeconds());
+
+    if (getTrapperSubsystem().isEnabled()) {
+      getAction().getMeta().put("trajectoryTime", compiledTrajectory.getTotalTimeSeconds());
+      // each replan restarts the timer, so a run can last up to one trajectory per replan longer
+      int trajectories = replanner != null ? DriveConstants.kReplanMaxCount + 1 : 1;
+      int capacity = (int) Math.ceil(
+          (trajectories * compiledTrajectory.getTotalTimeSeconds() + 1.0)
+              / TimedRobot.kDefaultPeriod);
+      if (traceBuffer == null || traceBuffer.getCapacity() < capacity) {
+        traceBuffer = new TraceBuffer(getAction().getMeasures(), capacity);
+      }
+    }
 
-    driveSubsystem.resetOdometry(trajectory.getInitialPose());
+    holonomicController.reset();
+    holonomicController.setEnabled(true);
+    if (replanner != null) {
+      replanner.reset();
+    }
+    replanCount = 0;
+    replanDisabled = false;
+    lastReplanSeconds = Timer.getFPGATimestamp();
+    replanTimeOffset = 0.0;
+
+    driveSubsystem.resetOdometry(compiledTrajectory.getInitialPose());
     timer.reset();
+    if (traceBuffer != null) {
+      traceBuffer.clear();
+    }
+    traceBufferFull = false;
 //    isTimerStarted = false;
 //    timer.start();
   }
 
   @Override
   public void execute() {
+    if (!hasTrajectory) {
+      if (!trajectoryFailed) {
+        startIfReady();
+      }
+      return;
+    }
 //    if (!isTimerStarted) {
 //      isTimerStarted = true;
 //      timer.start();
 //    }
-    state = trajectory.sample(timer.get());
+    index = compiledTrajectory.indexOf(timer.get());
     odometryPose = driveSubsystem.getPoseMeters();
-    speeds = holonomicDriveController.calculate(odometryPose, state, new Rotation2d());
-    driveSubsystem.move(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond,
-        speeds.omegaRadiansPerSecond, true);
-    super.execute();
+    if (replanner != null && !replanDisabled) {
+      replanIfOffPath();
+    }
+    holonomicController.calculate(odometryPose.getX(), odometryPose.getY(),
+        odometryPose.getRotation().getRadians(), compiledTrajectory, index, 0.0);
+    driveSubsystem.move(holonomicController.getVx(), holonomicController.getVy(),
+        holonomicController.getOmega(), true);
+    if (traceBuffer != null && !traceBufferFull) {
+      capture();
+    }
+  }
+
+  private void replanIfOffPath() {
+    var position = odometryPose.getTranslation();
+    replanner.update(position);
+    double error = Math.hypot(position.getX() - compiledTrajectory.getX(index),
+        position.getY() - compiledTrajectory.getY(index));
+    double now = Timer.getFPGATimestamp();
+    if (error < DriveConstants.kReplanErrorMeters
+        || now - lastReplanSeconds < DriveConstants.kReplanCooldownSeconds
+        || timer.hasElapsed(compiledTrajectory.getTotalTimeSeconds())) {
+      return;
+    }
+    lastReplanSeconds = now;
+
+    long start = System.nanoTime();
+    CompiledTrajectory replanned;
+    try {
+      replanned = new CompiledTrajectory(replanner.replan(position,
+          new Rotation2d(compiledTrajectory.getHeading(index)),
+          compiledTrajectory.getVelocity(index), DriveConstants.kReplanMinSegmentMeters));
+    } catch (RuntimeException e) {
+      logger.warn("replanning failed, continuing on current trajectory", e);
+      return;
+    }
+    compiledTrajectory = replanned;
+    index = 0;
+    replanTimeOffset += timer.get();
+    timer.reset();
+    replanCount++;
+
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    if (elapsed > DriveConstants.kReplanBudgetSeconds) {
+      // already paid for, so use it, but don't let replanning keep overrunning the loop
+      replanDisabled = true;
+      logger.warn("replanned {} m off path in {} ms, over budget, replanning disabled for this run",
+          String.format("%.2f", error), String.format("%.2f", elapsed * 1e3));
+    } else if (replanCount >= DriveConstants.kReplanMaxCount) {
+      replanDisabled = true;
+      logger.warn("replanned {} m off path, limit of {} replans reached for this run",
+          String.format("%.2f", error), DriveConstants.kReplanMaxCount);
+    } else {
+      logger.info("replanned {} m off path in {} ms", String.format("%.2f", error),
+          String.format("%.2f", elapsed * 1e3));
+    }
+  }
+
+  /**
+   * Records the current loop into the trace buffer, in the same column order as the action
+   * measures. Stops when the buffer is full rather than overwriting the start of the run.
+   */
+  private void capture() {
+    if (traceBuffer.size() == traceBuffer.getCapacity()) {
+      traceBufferFull = true;
+      logger.warn("trace buffer full after {} traces, not capturing the rest of this run",
+          traceBuffer.size());
+      return;
+    }
+    double time = replanTimeOffset + compiledTrajectory.getTimeSeconds(index);
+    int row = traceBuffer.append((int) Math.round(time * 1000));
+    traceBuffer.set(row, 0, compiledTrajectory.getAcceleration(index));
+    traceBuffer.set(row, 1, compiledTrajectory.getCurvature(index));
+    traceBuffer.set(row, 2, compiledTrajectory.getX(index));
+    traceBuffer.set(row, 3, compiledTrajectory.getY(index));
+    traceBuffer.set(row, 4, Math.toDegrees(compiledTrajectory.getHeading(index)));
+    traceBuffer.set(row, 5, time);
+    traceBuffer.set(row, 6, compiledTrajectory.getVelocity(index));
+    traceBuffer.set(row, 7, driveSubsystem.getHeading().getDegrees());
+    traceBuffer.set(row, 8, holonomicController.getVx());
+    traceBuffer.set(row, 9, holonomicController.getVy());
+    traceBuffer.set(row, 10, holonomicController.getOmega());
+    traceBuffer.set(row, 11, odometryPose.getX());
+    traceBuffer.set(row, 12, odometryPose.getY());
+    traceBuffer.set(row, 13, odometryPose.getRotation().getDegrees());
+  }
+
+  /**
+   * Returns the traces captured during the last run. Read after the command has ended.
+   */
+  public TraceBuffer getTraceBuffer() {
+    if (traceBuffer == null) {
+      throw new IllegalStateException("Trapper subsystem is not enabled");
+    }
+    return traceBuffer;
+  }
+
+  /**
+   * Returns true while following a trajectory. Unlike {@code isScheduled()} this is also true when
+   * the command runs inside a command group.
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Returns true if the last run loaded its trajectory, so its traces are worth uploading.
+   */
+  public boolean hasTrajectory() {
+    return hasTrajectory;
+  }
+
+  public double getReferenceX() {
+    return sample(CompiledTrajectory::getX);
+  }
+
+  public double getReferenceY() {
+    return sample(CompiledTrajectory::getY);
+  }
+
+  public double getReferenceHeading() {
+    return sample(CompiledTrajectory::getHeading);
+  }
+
+  public double getReferenceVelocity() {
+    return sample(CompiledTrajectory::getVelocity);
+  }
+
+  /**
+   * Reads one column at the current index for callers on other threads, such as the telemetry
+   * sampler. The trajectory and index are written separately when a replan is swapped in, so a
+   * reader can pair the new index with the previous trajectory. Reading the trajectory once and
+   * clamping the index keeps that read in bounds.
+   */
+  private double sample(Column column) {
+    var trajectory = compiledTrajectory;
+    return column.get(trajectory, Math.min(index, trajectory.length() - 1));
   }
 
   @NotNull
@@ -104,19 +355,20 @@ public class DriveTrajectoryCommand extends ActionCommand implements Measurable
       throw new IllegalStateException("Trapper subsystem is not enabled");
     }
 
-    var trace = new Trace((int) Math.round(state.timeSeconds * 1000));
+    double time = replanTimeOffset + compiledTrajectory.getTimeSeconds(index);
+    var trace = new Trace((int) Math.round(time * 1000));
     var data = trace.getData();
-    data.add(state.accelerationMetersPerSecondSq);
-    data.add(state.curvatureRadPerMeter);
-    data.add(state.poseMeters.getX());
-    data.add(state.poseMeters.getY());
-    data.add(state.poseMeters.getRotation().getDegrees());
-    data.add(state.timeSeconds);
-    data.add(state.velocityMetersPerSecond);
+    data.add(compiledTrajectory.getAcceleration(index));
+    data.add(compiledTrajectory.getCurvature(index));
+    data.add(compiledTrajectory.getX(index));
+    data.add(compiledTrajectory.getY(index));
+    data.add(Math.toDegrees(compiledTrajectory.getHeading(index)));
+    data.add(time);
+    data.add(compiledTrajectory.getVelocity(index));
     data.add(driveSubsystem.getHeading().getDegrees());
-    data.add(speeds.vxMetersPerSecond);
-    data.add(speeds.vyMetersPerSecond);
-    data.add(speeds.omegaRadiansPerSecond);
+    data.add(holonomicController.getVx());
+    data.add(holonomicController.getVy());
+    data.add(holonomicController.getOmega());
     data.add(odometryPose.getX());
     data.add(odometryPose.getY());
     data.add(odometryPose.getRotation().getDegrees());
@@ -126,12 +378,14 @@ public class DriveTrajectoryCommand extends ActionCommand implements Measurable
 
   @Override
   public void end(boolean interrupted) {
+    running = false;
     driveSubsystem.drive(0.0, 0.0, 0.0);
   }
 
   @Override
   public boolean isFinished() {
-    return timer.hasElapsed(trajectory.getTotalTimeSeconds());
+    return trajectoryFailed
+        || hasTrajectory && timer.hasElapsed(compiledTrajectory.getTotalTimeSeconds());
   }
 
   @NotNull
@@ -149,20 +403,29 @@ public class DriveTrajectoryCommand extends ActionCommand implements Measurable
   @Override
   public Set<Measure> getMeasures() {
     return Set.of(
-        new Measure("Traj. Accel", () -> state.accelerationMetersPerSecondSq),
-        new Measure("Traj. Curvature", () -> state.curvatureRadPerMeter),
-        new Measure("Traj. X", () -> state.poseMeters.getX()),
-        new Measure("Traj. Y", () -> state.poseMeters.getY()),
-        new Measure("Traj. Degrees", () -> state.poseMeters.getRotation().getDegrees()),
-        new Measure("Traj. Time", () -> state.timeSeconds),
-        new Measure("Traj. Vel", () -> state.velocityMetersPerSecond),
+        new Measure("Traj. Accel", () -> sample(CompiledTrajectory::getAcceleration)),
+        new Measure("Traj. Curvature", () -> sample(CompiledTrajectory::getCurvature)),
+        new Measure("Traj. X", () -> sample(CompiledTrajectory::getX)),
+        new Measure("Traj. Y", () -> sample(CompiledTrajectory::getY)),
+        new Measure("Traj. Degrees",
+            () -> Math.toDegrees(sample(CompiledTrajectory::getHeading))),
+        new Measure("Traj. Time", () -> sample(CompiledTrajectory::getTimeSeconds)),
+        new Measure("Traj. Vel", () -> sample(CompiledTrajectory::getVelocity)),
 //        new Measure("Gyro Degrees", () -> driveSubsystem.getHeading().getDegrees()),
-        new Measure("HC Vx", () -> speeds.vxMetersPerSecond),
-        new Measure("HC Vy", () -> speeds.vyMetersPerSecond),
-        new Measure("HC Omega", () -> speeds.omegaRadiansPerSecond)
+        new Measure("HC Vx", holonomicController::getVx),
+        new Measure("HC Vy", holonomicController::getVy),
+        new Measure("HC Omega", holonomicController::getOmega)
 //        new Measure("Odom. X", () -> odometryPose.getX()),
 //        new Measure("Odom. Y", () -> odometryPose.getY()),
 //        new Measure("Odom. Degrees", () -> odometryPose.getRotation().getDegrees())
     );
   }
+
+  /**
+   * Reads one trajectory column, such as {@link CompiledTrajectory#getX(int)}.
+   */
+  private interface Column {
+
+    double get(CompiledTrajectory trajectory, int index);
+  }
 }
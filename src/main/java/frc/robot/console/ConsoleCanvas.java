@@ -0,0 +1,180 @@
+package frc.robot.console;
+
+import java.util.Arrays;
+import org.strykeforce.console.ConsoleSubsystem;
+import org.strykeforce.console.Font;
+
+/**
+ * Retained-mode text layer over the {@link ConsoleSubsystem} OLED. Callers draw the whole screen
+ * into a character grid of {@link Font#FONT_5X8} cells each loop and {@link #flush()} sends only
+ * the cells that differ from what the display already shows, erasing the old glyph first.
+ *
+ * <p>Glyphs are drawn from a cache of single-character strings and numbers are formatted directly
+ * into the grid, so a screen of live readouts redrawn every loop allocates nothing and only the
+ * changed digits reach the display.
+ *
+ * <p>Not thread safe; use from the main loop.
+ */
+public final class ConsoleCanvas {
+
+  static final int kDisplayWidth = 128;
+  static final int kDisplayHeight = 64;
+  static final int kMarginX = 2;
+
+  private static final char kFirstGlyph = ' ';
+  private static final char kLastGlyph = '~';
+  private static final char kUnknown = 0;
+  private static final String[] kGlyphs = new String[kLastGlyph - kFirstGlyph + 1];
+
+  static {
+    for (char c = kFirstGlyph; c <= kLastGlyph; c++) {
+      kGlyphs[c - kFirstGlyph] = String.valueOf(c);
+    }
+  }
+
+  private final ConsoleSubsystem console;
+  private final int cellWidth = Font.FONT_5X8.getOuterWidth();
+  private final int cellHeight = Font.FONT_5X8.getOuterHeight();
+  private final int columns = (kDisplayWidth - kMarginX) / cellWidth;
+  private final int rows = kDisplayHeight / cellHeight;
+  private final char[] pending = new char[columns * rows];
+  private final char[] shown = new char[columns * rows];
+  private final char[] digits = new char[20];
+  private long glyphWrites;
+  private long skippedCells;
+  private boolean shedding;
+
+  public ConsoleCanvas(ConsoleSubsystem console) {
+    this.console = console;
+    Arrays.fill(pending, ' ');
+    Arrays.fill(shown, kUnknown);
+  }
+
+  public int getColumns() {
+    return columns;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Blanks the grid. Nothing is sent until {@link #flush()}.
+   */
+  public void clear() {
+    Arrays.fill(pending, ' ');
+  }
+
+  /**
+   * Forgets what the display shows, for example after {@code ConsoleSubsystem.clear()}, so the
+   * next flush redraws every non-blank cell.
+   */
+  public void invalidate() {
+    Arrays.fill(shown, kUnknown);
+  }
+
+  /**
+   * Draws text starting at a cell, clipped at the end of the row.
+   *
+   * @return the column after the text, for chaining
+   */
+  public int print(int column, int row, CharSequence text) {
+    for (int i = 0; i < text.length(); i++) {
+      put(column + i, row, text.charAt(i));
+    }
+    return column + text.length();
+  }
+
+  /**
+   * Draws a decimal number starting at a cell without allocating.
+   *
+   * @return the column after the number, for chaining
+   */
+  public int print(int column, int row, long value) {
+    int count = 0;
+    long remaining = value;
+    do {
+      digits[count++] = (char) ('0' + Math.abs(remaining % 10));
+      remaining /= 10;
+    } while (remaining != 0);
+    if (value < 0) {
+      put(column++, row, '-');
+    }
+    for (int i = count - 1; i >= 0; i--) {
+      put(column++, row, digits[i]);
+    }
+    return column;
+  }
+
+  public void printCentered(int row, CharSequence text) {
+    print(Math.max(0, (columns - text.length()) / 2), row, text);
+  }
+
+  /**
+   * Holds flushes while the robot loop sheds low-priority work. Drawing into the grid continues,
+   * and the first flush after shedding stops sends everything that changed in the meantime.
+   */
+  public void setShedding(boolean shedding) {
+    this.shedding = shedding;
+  }
+
+  /**
+   * Sends the cells that changed since the last flush. Does nothing while shedding.
+   *
+   * @return the number of glyphs drawn or erased
+   */
+  public int flush() {
+    if (shedding) {
+      return 0;
+    }
+    int writes = 0;
+    for (int row = 0; row < rows; row++) {
+      int y = row * cellHeight;
+      for (int column = 0; column < columns; column++) {
+        int cell = row * columns + column;
+        char next = pending[cell];
+        char previous = shown[cell];
+        if (next == previous) {
+          skippedCells++;
+          continue;
+        }
+        int x = kMarginX + column * cellWidth;
+        if (previous != kUnknown && previous != ' ') {
+          console.writeString(glyph(previous), x, y, false);
+          writes++;
+        }
+        if (next != ' ') {
+          console.writeString(glyph(next), x, y);
+          writes++;
+        }
+        shown[cell] = next;
+      }
+    }
+    glyphWrites += writes;
+    return writes;
+  }
+
+  /**
+   * Returns the total glyphs drawn or erased by all flushes.
+   */
+  public long getGlyphWrites() {
+    return glyphWrites;
+  }
+
+  /**
+   * Returns the total cells left untouched by all flushes because they hadn't changed.
+   */
+  public long getSkippedCells() {
+    return skippedCells;
+  }
+
+  private void put(int column, int row, char c) {
+    if (column >= 0 && column < columns && row >= 0 && row < rows) {
+      pending[row * columns + column] = c >= kFirstGlyph && c <= kLastGlyph ? c : '?';
+    }
+  }
+
+  private static String glyph(char c) {
+    return kGlyphs[c - kFirstGlyph];
+  }
+}
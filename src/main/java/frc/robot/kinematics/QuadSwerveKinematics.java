@@ -0,0 +1,171 @@
+package frc.robot.kinematics;
+
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+
+/**
+ * Four-module swerve kinematics on primitive arrays, computing the same results as WPILib's {@code
+ * SwerveDriveKinematics}, {@code normalizeWheelSpeeds} and {@code SwerveModuleState.optimize}
+ * without matrices or per-call allocation. {@link #desaturate} differs from {@code
+ * normalizeWheelSpeeds} for negative speeds, see there.
+ *
+ * <p>Module speeds are in meters per second and angles in radians, indexed in wheel location
+ * order. The inverse kinematics coefficients are the wheel locations themselves; the forward
+ * kinematics pseudo-inverse is precomputed in closed form at construction. Chassis speeds are
+ * indexed by {@link #VX}, {@link #VY} and {@link #OMEGA}.
+ */
+public final class QuadSwerveKinematics {
+
+  public static final int kModuleCount = 4;
+
+  public static final int VX = 0;
+  public static final int VY = 1;
+  public static final int OMEGA = 2;
+
+  private final double[] xs = new double[kModuleCount];
+  private final double[] ys = new double[kModuleCount];
+  // 3 x 8 pseudo-inverse of the inverse kinematics matrix, row-major
+  private final double[] forward = new double[3 * 2 * kModuleCount];
+
+  public QuadSwerveKinematics(Translation2d... wheelLocationsMeters) {
+    if (wheelLocationsMeters.length != kModuleCount) {
+      throw new IllegalArgumentException(
+          "expected " + kModuleCount + " wheel locations: " + wheelLocationsMeters.length);
+    }
+    for (int i = 0; i < kModuleCount; i++) {
+      xs[i] = wheelLocationsMeters[i].getX();
+      ys[i] = wheelLocationsMeters[i].getY();
+    }
+    computeForward();
+  }
+
+  /**
+   * Converts robot-relative chassis speeds to module speeds and angles.
+   */
+  public void toModuleStates(double vx, double vy, double omega, double[] speeds,
+      double[] angles) {
+    for (int i = 0; i < kModuleCount; i++) {
+      double x = vx - omega * ys[i];
+      double y = vy + omega * xs[i];
+      speeds[i] = Math.hypot(x, y);
+      angles[i] = angleOf(x, y);
+    }
+  }
+
+  /**
+   * Converts field-relative chassis speeds to module speeds and angles, as {@code
+   * ChassisSpeeds.fromFieldRelativeSpeeds} followed by {@link #toModuleStates}.
+   *
+   * @param headingRadians the robot heading, counter-clockwise positive
+   */
+  public void toModuleStatesFieldRelative(double vx, double vy, double omega,
+      double headingRadians, double[] speeds, double[] angles) {
+    double cos = Math.cos(headingRadians);
+    double sin = Math.sin(headingRadians);
+    toModuleStates(vx * cos + vy * sin, -vx * sin + vy * cos, omega, speeds, angles);
+  }
+
+  /**
+   * Converts module speeds and angles to robot-relative chassis speeds, written into {@code
+   * chassis}.
+   */
+  public void toChassisSpeeds(double[] speeds, double[] angles, double[] chassis) {
+    double vx = 0.0;
+    double vy = 0.0;
+    double omega = 0.0;
+    for (int i = 0; i < kModuleCount; i++) {
+      double x = speeds[i] * Math.cos(angles[i]);
+      double y = speeds[i] * Math.sin(angles[i]);
+      int c = 2 * i;
+      vx += forward[c] * x + forward[c + 1] * y;
+      vy += forward[8 + c] * x + forward[8 + c + 1] * y;
+      omega += forward[16 + c] * x + forward[16 + c + 1] * y;
+    }
+    chassis[VX] = vx;
+    chassis[VY] = vy;
+    chassis[OMEGA] = omega;
+  }
+
+  /**
+   * Scales all module speeds down in place so none exceeds {@code maxSpeed} in magnitude, keeping
+   * their ratios. WPILib 2021 {@code normalizeWheelSpeeds} compares against the largest signed
+   * speed, so it leaves a module commanded past the maximum in reverse unscaled; this uses the
+   * largest magnitude. Results are the same when no speed is negative.
+   */
+  public static void desaturate(double[] speeds, double maxSpeed) {
+    double realMax = 0.0;
+    for (double speed : speeds) {
+      realMax = Math.max(realMax, Math.abs(speed));
+    }
+    if (realMax > maxSpeed) {
+      for (int i = 0; i < speeds.length; i++) {
+        speeds[i] = speeds[i] / realMax * maxSpeed;
+      }
+    }
+  }
+
+  /**
+   * Reverses any module whose azimuth would turn more than 90 degrees from its current angle, in
+   * place, so it turns the short way and drives backwards instead. Only for callers that command
+   * the Talons directly: {@code SwerveModule.setDesiredState} already optimizes against the
+   * module's own azimuth position, which is more current than any snapshot.
+   */
+  public static void optimize(double[] speeds, double[] angles, double[] currentAngles) {
+    for (int i = 0; i < speeds.length; i++) {
+      double delta = wrap(angles[i] - currentAngles[i]);
+      if (Math.abs(delta) > Math.PI / 2.0) {
+        speeds[i] = -speeds[i];
+        angles[i] = wrap(angles[i] + Math.PI);
+      }
+    }
+  }
+
+  // Rotation2d(x, y) treats a zero vector as angle zero
+  private static double angleOf(double x, double y) {
+    double magnitude = Math.hypot(x, y);
+    if (magnitude > 1e-6) {
+      return Math.atan2(y / magnitude, x / magnitude);
+    }
+    return 0.0;
+  }
+
+  private static double wrap(double radians) {
+    return Math.atan2(Math.sin(radians), Math.cos(radians));
+  }
+
+  /**
+   * Computes (A^T A)^-1 A^T for the 8 x 3 inverse kinematics matrix A, whose rows for module i are
+   * [1, 0, -y_i] and [0, 1, x_i].
+   */
+  private void computeForward() {
+    double sumX = 0.0;
+    double sumY = 0.0;
+    double sumSquares = 0.0;
+    for (int i = 0; i < kModuleCount; i++) {
+      sumX += xs[i];
+      sumY += ys[i];
+      sumSquares += xs[i] * xs[i] + ys[i] * ys[i];
+    }
+    double n = kModuleCount;
+    // A^T A = [[n, 0, -sumY], [0, n, sumX], [-sumY, sumX, sumSquares]], symmetric
+    double a = n;
+    double c = -sumY;
+    double e = sumX;
+    double f = sumSquares;
+    double det = a * (a * f - e * e) - c * c * a;
+    if (Math.abs(det) < 1e-12) {
+      throw new IllegalArgumentException("wheel locations do not determine chassis rotation");
+    }
+    double[] inv = {
+        (a * f - e * e) / det, (c * e) / det, (-c * a) / det,
+        (c * e) / det, (a * f - c * c) / det, (-a * e) / det,
+        (-c * a) / det, (-a * e) / det, (a * a) / det
+    };
+    for (int row = 0; row < 3; row++) {
+      for (int i = 0; i < kModuleCount; i++) {
+        // column 2i of A^T is [1, 0, -y_i], column 2i+1 is [0, 1, x_i]
+        forward[row * 8 + 2 * i] = inv[row * 3] - inv[row * 3 + 2] * ys[i];
+        forward[row * 8 + 2 * i + 1] = inv[row * 3 + 1] + inv[row * 3 + 2] * xs[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,304 @@
+package frc.robot.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.util.FileSize;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logback appender that hands events to a background thread through a bounded lock-free ring
+ * buffer. Logging threads only claim a slot and store the event; formatting, rate limiting and
+ * I/O happen on the writer thread, which writes to {@code file} (or standard output if none is
+ * set) in batches.
+ *
+ * <p>A file is rolled over once it reaches {@code maxFileSize}: {@code robot.log} becomes {@code
+ * robot.log.1}, older files shift up by one and those past {@code maxHistory} are deleted, so the
+ * log never takes more than about {@code maxFileSize * (maxHistory + 1)} of disk.
+ *
+ * <p>When the buffer is full the event is dropped and counted rather than blocking the caller, and
+ * the writer reports the count. Messages from the same logger and format string are limited to
+ * {@code maxRepeatsPerSecond}, with the number suppressed reported when the second is up.
+ *
+ * <p>Message arguments are formatted later on the writer thread, so they must not be mutated
+ * after logging. WPILib geometry classes are immutable.
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+  private static final int kBatchBytes = 8192;
+  private static final long kIdleNanos = TimeUnit.MILLISECONDS.toNanos(5);
+  private static final long kWindowMillis = 1000;
+  private static final int kMaxTrackedMessages = 1024;
+
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Map<String, Repeats> repeats = new HashMap<>();
+  private final ByteArrayOutputStream batch = new ByteArrayOutputStream(kBatchBytes * 2);
+  private Encoder<ILoggingEvent> encoder;
+  private String file;
+  private int capacity = 1024;
+  private int maxRepeatsPerSecond = 20;
+  private long maxFileSize = 10 << 20;
+  private int maxHistory = 4;
+  private long fileBytes;
+  private AtomicReferenceArray<ILoggingEvent> buffer;
+  private int mask;
+  private volatile long head;
+  private volatile boolean running;
+  private long droppedReported;
+  private OutputStream out;
+  private Thread writer;
+
+  public void setEncoder(Encoder<ILoggingEvent> encoder) {
+    this.encoder = encoder;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  /**
+   * Sets the number of buffered events, rounded up to a power of two.
+   */
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public void setMaxRepeatsPerSecond(int maxRepeatsPerSecond) {
+    this.maxRepeatsPerSecond = maxRepeatsPerSecond;
+  }
+
+  public void setMaxFileSize(FileSize maxFileSize) {
+    this.maxFileSize = maxFileSize.getSize();
+  }
+
+  /**
+   * Sets the number of rolled over files kept besides the current one.
+   */
+  public void setMaxHistory(int maxHistory) {
+    this.maxHistory = maxHistory;
+  }
+
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  @Override
+  public void start() {
+    if (encoder == null) {
+      addError("No encoder set for the appender named [" + getName() + "].");
+      return;
+    }
+    int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    buffer = new AtomicReferenceArray<>(size);
+    mask = size - 1;
+    try {
+      if (file != null) {
+        var parent = new File(file).getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+          addWarn("Unable to create log directory " + parent);
+        }
+        out = new FileOutputStream(file, true);
+        fileBytes = new File(file).length();
+      } else {
+        out = System.out;
+      }
+      write(encoder.headerBytes());
+    } catch (IOException e) {
+      addError("Unable to open " + file, e);
+      return;
+    }
+    running = true;
+    writer = new Thread(this::drain, "RingBufferAppender-" + getName());
+    writer.setDaemon(true);
+    writer.setPriority(Thread.MIN_PRIORITY);
+    writer.start();
+    super.start();
+  }
+
+  @Override
+  public void stop() {
+    if (!isStarted()) {
+      return;
+    }
+    super.stop();
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(1000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      write(encoder.footerBytes());
+      flush();
+      if (out != System.out) {
+        out.close();
+      }
+    } catch (IOException e) {
+      addError("Unable to close " + file, e);
+    }
+  }
+
+  @Override
+  protected void append(ILoggingEvent event) {
+    // captured lazily from the current thread, so must be read here
+    event.getThreadName();
+    event.getMDCPropertyMap();
+
+    long claimed;
+    do {
+      claimed = tail.get();
+      if (claimed - head >= buffer.length()) {
+        dropped.incrementAndGet();
+        return;
+      }
+    } while (!tail.compareAndSet(claimed, claimed + 1));
+    buffer.set((int) claimed & mask, event);
+  }
+
+  private void drain() {
+    try {
+      while (running || head < tail.get()) {
+        int slot = (int) head & mask;
+        var event = buffer.get(slot);
+        if (event == null) {
+          // empty, or a producer has claimed the slot but not stored yet
+          reportDropped();
+          flush();
+          if (head == tail.get()) {
+            LockSupport.parkNanos(kIdleNanos);
+          } else {
+            Thread.onSpinWait();
+          }
+          continue;
+        }
+        buffer.set(slot, null);
+        head = head + 1;
+        if (allow(event)) {
+          write(encoder.encode(event));
+        }
+        if (batch.size() >= kBatchBytes) {
+          flush();
+        }
+      }
+      reportDropped();
+      flush();
+    } catch (IOException e) {
+      addError("Unable to write " + (file != null ? file : "standard output"), e);
+    }
+  }
+
+  private boolean allow(ILoggingEvent event) throws IOException {
+    var key = event.getLoggerName() + '|' + event.getMessage();
+    long now = event.getTimeStamp();
+    var r = repeats.get(key);
+    if (r == null) {
+      if (repeats.size() >= kMaxTrackedMessages) {
+        repeats.clear();
+      }
+      repeats.put(key, new Repeats(now));
+      return true;
+    }
+    if (now - r.windowStart >= kWindowMillis) {
+      if (r.suppressed > 0) {
+        note(r.suppressed + " repeats suppressed: " + event.getLoggerName() + " - "
+            + event.getMessage());
+      }
+      r.windowStart = now;
+      r.count = 1;
+      r.suppressed = 0;
+      return true;
+    }
+    if (r.count < maxRepeatsPerSecond) {
+      r.count++;
+      return true;
+    }
+    r.suppressed++;
+    return false;
+  }
+
+  private void reportDropped() throws IOException {
+    long total = dropped.get();
+    if (total != droppedReported) {
+      note((total - droppedReported) + " messages dropped, log buffer full");
+      droppedReported = total;
+    }
+  }
+
+  private void note(String message) throws IOException {
+    write(("[" + getName() + "] " + message + System.lineSeparator())
+        .getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void write(byte[] bytes) throws IOException {
+    if (bytes != null) {
+      batch.write(bytes);
+    }
+  }
+
+  private void flush() throws IOException {
+    if (batch.size() > 0) {
+      if (file != null && fileBytes > 0 && fileBytes + batch.size() > maxFileSize) {
+        rollOver();
+      }
+      fileBytes += batch.size();
+      batch.writeTo(out);
+      batch.reset();
+      out.flush();
+    }
+  }
+
+  private void rollOver() throws IOException {
+    out.close();
+    Path current = Paths.get(file);
+    try {
+      Files.deleteIfExists(rolled(current, maxHistory));
+      for (int i = maxHistory - 1; i >= 1; i--) {
+        Path source = rolled(current, i);
+        if (Files.exists(source)) {
+          Files.move(source, rolled(current, i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      if (maxHistory > 0) {
+        Files.move(current, rolled(current, 1), StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        Files.delete(current);
+      }
+    } catch (IOException e) {
+      addWarn("Unable to roll over " + file, e);
+    }
+    out = new FileOutputStream(file, true);
+    fileBytes = new File(file).length();
+  }
+
+  private static Path rolled(Path path, int index) {
+    return path.resolveSibling(path.getFileName() + "." + index);
+  }
+
+  private static final class Repeats {
+
+    long windowStart;
+    int count = 1;
+    int suppressed;
+
+    Repeats(long windowStart) {
+      this.windowStart = windowStart;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package frc.robot.profiler;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import java.util.function.Function;
+
+/**
+ * Measures the teleop path from driver station packet to Talon writes. Code on the path marks each
+ * {@link Stage} as it passes; at the end of a loop where every stage was reached the intervals
+ * between them are recorded in histograms published by the {@link LoopProfiler}.
+ *
+ * <p>Packet arrival is timestamped by a background thread waiting on driver station data. The
+ * robot loop isn't synchronized to packets, so the first interval shows how stale the joystick
+ * data is by the time the drive command runs.
+ */
+public final class InputLatency {
+
+  public enum Stage {
+    PACKET,
+    COMMAND_EXECUTE,
+    AXIS_READ,
+    KINEMATICS_DONE,
+    CAN_WRITE
+  }
+
+  private static final Stage[] kStages = Stage.values();
+
+  private final long[] marks = new long[kStages.length];
+  private final LatencyHistogram[] intervals = new LatencyHistogram[kStages.length - 1];
+  private final LatencyHistogram total;
+  private volatile long packetMicros = -1;
+  private Thread packetMonitor;
+
+  InputLatency(Function<String, LatencyHistogram> histograms) {
+    for (int i = 0; i < intervals.length; i++) {
+      intervals[i] = histograms.apply("Input " + label(kStages[i]) + " to "
+          + label(kStages[i + 1]));
+    }
+    total = histograms.apply("Input " + label(Stage.PACKET) + " to "
+        + label(Stage.CAN_WRITE));
+    clear();
+  }
+
+  private static String label(Stage stage) {
+    switch (stage) {
+      case PACKET:
+        return "Packet";
+      case COMMAND_EXECUTE:
+        return "Execute";
+      case AXIS_READ:
+        return "Axis Read";
+      case KINEMATICS_DONE:
+        return "Kinematics";
+      default:
+        return "CAN Write";
+    }
+  }
+
+  /**
+   * Starts the thread that timestamps driver station packets.
+   */
+  public synchronized void startPacketMonitor() {
+    if (packetMonitor != null) {
+      return;
+    }
+    packetMonitor = new Thread(() -> {
+      var driverStation = DriverStation.getInstance();
+      while (!Thread.currentThread().isInterrupted()) {
+        if (driverStation.waitForData(0.1)) {
+          packetMicros = LoopProfiler.now();
+        }
+      }
+    }, "InputLatency");
+    packetMonitor.setDaemon(true);
+    packetMonitor.start();
+  }
+
+  /**
+   * Marks the first time {@code stage} is reached in this loop; later marks are ignored.
+   */
+  public void mark(Stage stage) {
+    int i = stage.ordinal();
+    if (marks[i] < 0) {
+      marks[i] = LoopProfiler.now();
+    }
+  }
+
+  void beginLoop() {
+    clear();
+    // the loop reads the driver station data cached from the latest packet
+    marks[Stage.PACKET.ordinal()] = packetMicros;
+  }
+
+  void endLoop() {
+    for (long mark : marks) {
+      if (mark < 0) {
+        return;
+      }
+    }
+    for (int i = 0; i < intervals.length; i++) {
+      intervals[i].record(marks[i + 1] - marks[i]);
+    }
+    total.record(marks[kStages.length - 1] - marks[0]);
+  }
+
+  private void clear() {
+    for (int i = 0; i < marks.length; i++) {
+      marks[i] = -1;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package frc.robot.profiler;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram in microseconds. Values below 16 us get their own bucket, larger
+ * values fall into 8 sub-buckets per power of two, so percentiles are within about 12% up to 16
+ * seconds. Recording is a few arithmetic operations and never allocates.
+ *
+ * <p>Recording and reset are expected on one thread. Readers on other threads, such as telemetry,
+ * may see a slightly inconsistent view, which is fine for monitoring.
+ */
+public final class LatencyHistogram {
+
+  private static final int kLinearBuckets = 16;
+  private static final int kSubBuckets = 8;
+  private static final int kMaxExponent = 24; // 2^24 us ~ 16.8 s
+  private static final int kBucketCount = kLinearBuckets + (kMaxExponent - 3) * kSubBuckets;
+
+  private final long[] counts = new long[kBucketCount];
+  private long count;
+  private long min = Long.MAX_VALUE;
+  private long max;
+
+  public void record(long micros) {
+    if (micros < 0) {
+      micros = 0;
+    }
+    counts[bucketOf(micros)]++;
+    count++;
+    if (micros < min) {
+      min = micros;
+    }
+    if (micros > max) {
+      max = micros;
+    }
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    count = 0;
+    min = Long.MAX_VALUE;
+    max = 0;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * Returns an upper bound of the given percentile in microseconds, for example {@code 0.99}.
+   */
+  public long getPercentile(double percentile) {
+    long total = count;
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile * total);
+    long seen = 0;
+    for (int i = 0; i < kBucketCount; i++) {
+      seen += counts[i];
+      if (seen >= Math.max(rank, 1)) {
+        return Math.min(upperBoundOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int bucketOf(long micros) {
+    if (micros < kLinearBuckets) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    if (exponent > kMaxExponent) {
+      return kBucketCount - 1;
+    }
+    int sub = (int) (micros >>> (exponent - 3)) & (kSubBuckets - 1);
+    return kLinearBuckets + (exponent - 4) * kSubBuckets + sub;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < kLinearBuckets) {
+      return bucket;
+    }
+    int exponent = (bucket - kLinearBuckets) / kSubBuckets + 4;
+    int sub = (bucket - kLinearBuckets) % kSubBuckets;
+    long width = 1L << (exponent - 3);
+    return (1L << exponent) + (sub + 1) * width - 1;
+  }
+}
@@ -0,0 +1,223 @@
+package frc.robot.profiler;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.strykeforce.telemetry.measurable.Measurable;
+import org.strykeforce.telemetry.measurable.Measure;
+
+/**
+ * Measures where the time goes in each {@code CommandScheduler.run()} and publishes min, p50, p99
+ * and max for each part as telemetry measures.
+ *
+ * <p>The scheduler has no hook between individual subsystem {@code periodic()} calls, so the
+ * subsystem phase is timed as a whole using a button-poll marker registered before any other
+ * button. Subsystems can time their own {@code periodic()} with a {@link Section}. Each command
+ * {@code execute()} is timed from the previous mark to the scheduler's execute callback, which
+ * also covers the previous command's {@code isFinished()}. Commands not passed to {@link
+ * #track(Command, String)} are grouped together.
+ *
+ * <p>Teleop input latency is broken down by stage through {@link #getInputLatency()}. Robot bases
+ * that schedule the loop themselves, such as {@code NotifierRobot}, report loop start jitter, cycle
+ * time and overruns through {@link #recordCycle(long, long)} and {@link #recordOverrun(long)}.
+ *
+ * <p>Set the {@code /Profiler/Reset} NetworkTables entry to true to reset all histograms.
+ */
+public class LoopProfiler implements Measurable {
+
+  private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+  private final Map<Command, LatencyHistogram> commands = new IdentityHashMap<>();
+  private final LatencyHistogram scheduler;
+  private final LatencyHistogram subsystems;
+  private final LatencyHistogram buttons;
+  private final LatencyHistogram otherCommands;
+  private final LatencyHistogram startJitter;
+  private final LatencyHistogram cycle;
+  private final NetworkTableEntry resetEntry;
+  private final InputLatency inputLatency;
+  private boolean inLoop;
+  private long loopStart;
+  private long mark;
+  private volatile long overruns;
+  private volatile long skippedCycles;
+
+  /**
+   * Creates the profiler and registers its scheduler hooks. Create it before any button bindings
+   * and call {@link #installButtonsMarker()} after them.
+   */
+  public LoopProfiler() {
+    scheduler = histogram("Scheduler");
+    subsystems = histogram("Subsystems");
+    buttons = histogram("Buttons");
+    otherCommands = histogram("Other Commands");
+    startJitter = histogram("Loop Start Jitter");
+    cycle = histogram("Loop Cycle");
+    inputLatency = new InputLatency(this::histogram);
+    resetEntry = NetworkTableInstance.getDefault().getEntry("/Profiler/Reset");
+    resetEntry.setBoolean(false);
+
+    var commandScheduler = CommandScheduler.getInstance();
+    commandScheduler.addButton(this::markSubsystemsDone);
+    commandScheduler.onCommandExecute(this::markCommandExecuted);
+  }
+
+  /**
+   * Registers the marker for the end of button polling. Call after all button bindings.
+   */
+  public void installButtonsMarker() {
+    CommandScheduler.getInstance().addButton(this::markButtonsDone);
+  }
+
+  /**
+   * Gives a command its own histogram.
+   */
+  public void track(Command command, String name) {
+    commands.put(command, histogram(name + ".execute"));
+  }
+
+  public InputLatency getInputLatency() {
+    return inputLatency;
+  }
+
+  /**
+   * Creates a section for code to time itself, for example a subsystem's {@code periodic()}.
+   */
+  public Section section(String name) {
+    return new Section(histogram(name));
+  }
+
+  public void beginLoop() {
+    if (resetEntry.getBoolean(false)) {
+      histograms.values().forEach(LatencyHistogram::reset);
+      overruns = 0;
+      skippedCycles = 0;
+      resetEntry.setBoolean(false);
+    }
+    loopStart = now();
+    mark = loopStart;
+    inLoop = true;
+    inputLatency.beginLoop();
+  }
+
+  public void endLoop() {
+    scheduler.record(now() - loopStart);
+    inLoop = false;
+    inputLatency.endLoop();
+  }
+
+  /**
+   * Records how late a loop started after its scheduled time and how long it ran, in microseconds.
+   */
+  public void recordCycle(long startJitterMicros, long cycleMicros) {
+    startJitter.record(startJitterMicros);
+    cycle.record(cycleMicros);
+  }
+
+  /**
+   * Records a loop that ran past the start of the next one and the cycles skipped as a result.
+   */
+  public void recordOverrun(long skipped) {
+    overruns++;
+    skippedCycles += skipped;
+  }
+
+  public long getOverrunCount() {
+    return overruns;
+  }
+
+  public long getSkippedCycleCount() {
+    return skippedCycles;
+  }
+
+  public LatencyHistogram getHistogram(String name) {
+    return histograms.get(name);
+  }
+
+  private void markSubsystemsDone() {
+    if (inLoop) {
+      long now = now();
+      subsystems.record(now - mark);
+      mark = now;
+    }
+  }
+
+  private void markButtonsDone() {
+    if (inLoop) {
+      long now = now();
+      buttons.record(now - mark);
+      mark = now;
+    }
+  }
+
+  private void markCommandExecuted(Command command) {
+    if (inLoop) {
+      long now = now();
+      commands.getOrDefault(command, otherCommands).record(now - mark);
+      mark = now;
+    }
+  }
+
+  private LatencyHistogram histogram(String name) {
+    return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+  }
+
+  static long now() {
+    return System.nanoTime() / 1000;
+  }
+
+  // Measurable Support
+
+  @NotNull
+  @Override
+  public String getDescription() {
+    return "Loop Profiler";
+  }
+
+  @Override
+  public int getDeviceId() {
+    return 0;
+  }
+
+  @NotNull
+  @Override
+  public Set<Measure> getMeasures() {
+    Set<Measure> measures = new HashSet<>();
+    histograms.forEach((name, h) -> {
+      measures.add(new Measure(name + " min (ms)", () -> h.getMin() / 1000.0));
+      measures.add(new Measure(name + " p50 (ms)", () -> h.getPercentile(0.50) / 1000.0));
+      measures.add(new Measure(name + " p99 (ms)", () -> h.getPercentile(0.99) / 1000.0));
+      measures.add(new Measure(name + " max (ms)", () -> h.getMax() / 1000.0));
+    });
+    measures.add(new Measure("Loop Overruns", () -> overruns));
+    measures.add(new Measure("Loop Skipped Cycles", () -> skippedCycles));
+    return measures;
+  }
+
+  /**
+   * Times a block of code on the main thread.
+   */
+  public static final class Section {
+
+    private final LatencyHistogram histogram;
+    private long start;
+
+    private Section(LatencyHistogram histogram) {
+      this.histogram = histogram;
+    }
+
+    public void start() {
+      start = now();
+    }
+
+    public void stop() {
+      histogram.record(now() - start);
+    }
+  }
+}
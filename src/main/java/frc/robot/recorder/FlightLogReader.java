@@ -0,0 +1,197 @@
+package frc.robot.recorder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline reader for {@link FlightRecorder} segments. Run from a desktop with:
+ *
+ * <pre>
+ * java -cp robot.jar frc.robot.recorder.FlightLogReader csv|trapper segment-000000.bin ...
+ * </pre>
+ *
+ * <p>{@code csv} writes a header row and one row per record; {@code trapper} writes a JSON object
+ * with the measure names and a list of traces in the form accepted by the Trapper traces endpoint,
+ * with time in milliseconds since the first record. Segments are written in the order given as
+ * one table or object, so they must all have the same columns.
+ */
+public final class FlightLogReader {
+
+  private final List<String> columns;
+  private final MappedByteBuffer records;
+  private final int recordCount;
+
+  public FlightLogReader(Path segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      if (buffer.getInt() != FlightRecorder.kMagic) {
+        throw new IOException("not a flight recorder segment: " + segment);
+      }
+      int version = buffer.getInt();
+      if (version != FlightRecorder.kVersion) {
+        throw new IOException("unsupported segment version " + version + ": " + segment);
+      }
+      int columnCount = buffer.getInt();
+      recordCount = buffer.getInt();
+      columns = new ArrayList<>(columnCount);
+      for (int i = 0; i < columnCount; i++) {
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+        columns.add(new String(name, StandardCharsets.UTF_8));
+      }
+      buffer.position((buffer.position() + 7) & ~7);
+      records = buffer;
+    }
+  }
+
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  public int getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Returns the FPGA timestamp in microseconds of a record.
+   */
+  public long getTimestamp(int record) {
+    return records.getLong(offset(record));
+  }
+
+  public double get(int record, int column) {
+    return records.getDouble(offset(record) + 8 + 8 * column);
+  }
+
+  private int offset(int record) {
+    if (record < 0 || record >= recordCount) {
+      throw new IndexOutOfBoundsException("record " + record + " of " + recordCount);
+    }
+    return records.position() + record * (8 + 8 * columns.size());
+  }
+
+  /**
+   * Writes this segment as CSV, see {@link #writeCsv(List, Writer)}.
+   */
+  public void writeCsv(Writer out) throws IOException {
+    writeCsv(List.of(this), out);
+  }
+
+  /**
+   * Writes this segment as a Trapper JSON object, see {@link #writeTrapper(List, Writer)}.
+   */
+  public void writeTrapper(Writer out) throws IOException {
+    writeTrapper(List.of(this), out);
+  }
+
+  /**
+   * Writes consecutive segments as one CSV table with a single header row.
+   *
+   * @throws IOException if the segments don't all have the same columns
+   */
+  public static void writeCsv(List<FlightLogReader> segments, Writer out) throws IOException {
+    List<String> columns = columnsOf(segments);
+    out.write("timestamp_us");
+    for (String column : columns) {
+      out.write(',');
+      out.write(column.indexOf(',') >= 0 ? '"' + column.replace("\"", "\"\"") + '"' : column);
+    }
+    out.write('\n');
+    for (FlightLogReader segment : segments) {
+      for (int i = 0; i < segment.recordCount; i++) {
+        out.write(Long.toString(segment.getTimestamp(i)));
+        for (int j = 0; j < columns.size(); j++) {
+          out.write(',');
+          out.write(Double.toString(segment.get(i, j)));
+        }
+        out.write('\n');
+      }
+    }
+  }
+
+  /**
+   * Writes consecutive segments as one Trapper JSON object, with time in milliseconds since the
+   * first record of the first segment.
+   *
+   * @throws IOException if the segments don't all have the same columns
+   */
+  public static void writeTrapper(List<FlightLogReader> segments, Writer out)
+      throws IOException {
+    List<String> columns = columnsOf(segments);
+    out.write("{\"measures\":[");
+    for (int j = 0; j < columns.size(); j++) {
+      if (j > 0) {
+        out.write(',');
+      }
+      out.write('"' + columns.get(j).replace("\\", "\\\\").replace("\"", "\\\"") + '"');
+    }
+    out.write("],\"traces\":[");
+    long start = -1;
+    boolean first = true;
+    for (FlightLogReader segment : segments) {
+      for (int i = 0; i < segment.recordCount; i++) {
+        if (start < 0) {
+          start = segment.getTimestamp(i);
+        }
+        if (!first) {
+          out.write(',');
+        }
+        first = false;
+        out.write("{\"time\":" + (segment.getTimestamp(i) - start) / 1000 + ",\"data\":[");
+        for (int j = 0; j < columns.size(); j++) {
+          if (j > 0) {
+            out.write(',');
+          }
+          double value = segment.get(i, j);
+          out.write(Double.isFinite(value) ? Double.toString(value) : "null");
+        }
+        out.write("]}");
+      }
+    }
+    out.write("]}\n");
+  }
+
+  private static List<String> columnsOf(List<FlightLogReader> segments) throws IOException {
+    if (segments.isEmpty()) {
+      throw new IllegalArgumentException("no segments");
+    }
+    List<String> columns = segments.get(0).columns;
+    for (FlightLogReader segment : segments) {
+      if (!segment.columns.equals(columns)) {
+        throw new IOException("segments have different columns, " + columns + " and "
+            + segment.columns);
+      }
+    }
+    return columns;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || !(args[0].equals("csv") || args[0].equals("trapper"))) {
+      System.err.println("usage: FlightLogReader csv|trapper SEGMENT...");
+      System.exit(1);
+    }
+    List<FlightLogReader> segments = new ArrayList<>(args.length - 1);
+    for (int i = 1; i < args.length; i++) {
+      segments.add(new FlightLogReader(Path.of(args[i])));
+    }
+    try (Writer out = new BufferedWriter(
+        new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+      if (args[0].equals("csv")) {
+        writeCsv(segments, out);
+      } else {
+        writeTrapper(segments, out);
+      }
+    }
+  }
+}
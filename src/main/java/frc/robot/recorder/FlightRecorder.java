@@ -0,0 +1,258 @@
+package frc.robot.recorder;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotController;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.strykeforce.telemetry.measurable.Measurable;
+import org.strykeforce.telemetry.measurable.Measure;
+
+/**
+ * Records every measure of the registered {@link Measurable}s to a binary log on local disk at
+ * full loop rate. The log is split into fixed-size, memory-mapped segment files; records are
+ * written straight into the mapping so recording does not allocate or copy. The next segment is
+ * created and mapped on a background thread while the current one fills, and segments beyond
+ * {@code maxSegments} are deleted there too, so the robot loop never waits on the file system. If
+ * the next segment isn't ready when the current one is full, records are dropped until it is.
+ *
+ * <p>Segment layout (little-endian): magic, version, column count, record count, the column names
+ * as length-prefixed UTF-8, padding to 8 bytes, then records of a {@code long} FPGA timestamp in
+ * microseconds followed by one {@code double} per column. The record count in the header is
+ * updated after each record. Use {@link FlightLogReader} to export segments.
+ */
+public class FlightRecorder {
+
+  static final int kMagic = 0x464C5452; // "FLTR"
+  static final int kVersion = 1;
+  static final int kRecordCountOffset = 12;
+  static final String kSegmentPrefix = "segment-";
+  static final String kSegmentSuffix = ".bin";
+
+  // 32 MB of retention, about half an hour of enabled time for a few dozen measures at 50 Hz
+  public static final int kDefaultSegmentBytes = 4 << 20;
+  public static final int kDefaultMaxSegments = 8;
+
+  private static final Logger logger = LoggerFactory.getLogger(FlightRecorder.class);
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final LongSupplier clock;
+  private final List<String> names = new ArrayList<>();
+  private final List<DoubleSupplier> suppliers = new ArrayList<>();
+  private final ExecutorService maintenance = Executors.newSingleThreadExecutor(runnable -> {
+    var thread = new Thread(runnable, "FlightRecorder");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+  private DoubleSupplier[] columns;
+  private byte[][] encodedNames;
+  private int headerBytes;
+  private MappedByteBuffer segment;
+  private Future<MappedByteBuffer> nextSegment;
+  private int segmentIndex;
+  private int recordCount;
+  private int recordCapacity;
+  private long droppedRecords;
+
+  /**
+   * Creates a recorder writing {@link #kDefaultSegmentBytes} segments to the {@code flight} folder
+   * of the operating directory and keeping the latest {@link #kDefaultMaxSegments}.
+   */
+  public FlightRecorder() {
+    this(Filesystem.getOperatingDirectory().toPath().resolve("flight"), kDefaultSegmentBytes,
+        kDefaultMaxSegments);
+  }
+
+  public FlightRecorder(Path directory, int segmentBytes, int maxSegments) {
+    this(directory, segmentBytes, maxSegments, RobotController::getFPGATime);
+  }
+
+  /**
+   * Creates a recorder that timestamps records from {@code clockMicros}, for tests.
+   */
+  FlightRecorder(Path directory, int segmentBytes, int maxSegments, LongSupplier clockMicros) {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = maxSegments;
+    clock = clockMicros;
+  }
+
+  /**
+   * Adds all measures of {@code measurable} to the record schema. Must be called before {@link
+   * #start()}.
+   */
+  public void register(Measurable measurable) {
+    if (columns != null) {
+      throw new IllegalStateException("recorder already started");
+    }
+    for (Measure measure : measurable.getMeasures()) {
+      names.add(measurable.getDescription() + "/" + measure.getName());
+      suppliers.add(measure.getMeasurement());
+    }
+  }
+
+  /**
+   * Freezes the record schema, opens the first segment and starts preparing the next.
+   */
+  public void start() {
+    if (columns != null) {
+      throw new IllegalStateException("recorder already started");
+    }
+    columns = suppliers.toArray(new DoubleSupplier[0]);
+    encodedNames = new byte[names.size()][];
+    headerBytes = 16;
+    for (int i = 0; i < encodedNames.length; i++) {
+      encodedNames[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+      headerBytes += 2 + encodedNames[i].length;
+    }
+    headerBytes = (headerBytes + 7) & ~7;
+    recordCapacity = (segmentBytes - headerBytes) / (8 + 8 * columns.length);
+    if (recordCapacity <= 0) {
+      throw new IllegalStateException("segment too small for " + columns.length + " columns");
+    }
+
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> paths = Files.list(directory)) {
+        segmentIndex = paths.mapToInt(FlightRecorder::segmentIndexOf).max().orElse(-1) + 1;
+      }
+      segment = createSegment(segmentIndex);
+    } catch (IOException e) {
+      logger.error("unable to open flight recorder in {}, recording stopped", directory, e);
+      return;
+    }
+    prepareNextSegment();
+    logger.info("recording {} measures to {}", columns.length, directory);
+  }
+
+  public boolean isStarted() {
+    return columns != null;
+  }
+
+  /**
+   * Samples every registered measure and appends a record. Call once per robot loop.
+   */
+  public void record() {
+    if (segment == null) {
+      return;
+    }
+    if (recordCount == recordCapacity && !nextSegment()) {
+      return;
+    }
+    segment.putLong(clock.getAsLong());
+    for (DoubleSupplier column : columns) {
+      segment.putDouble(column.getAsDouble());
+    }
+    segment.putInt(kRecordCountOffset, ++recordCount);
+  }
+
+  public List<String> getColumnNames() {
+    return List.copyOf(names);
+  }
+
+  /**
+   * Returns the number of records dropped while waiting for the next segment.
+   */
+  public long getDroppedRecords() {
+    return droppedRecords;
+  }
+
+  /**
+   * Switches to the prepared segment if it's ready, returning false if this record must be
+   * dropped.
+   */
+  private boolean nextSegment() {
+    if (!nextSegment.isDone()) {
+      droppedRecords++;
+      return false;
+    }
+    try {
+      segment = nextSegment.get();
+    } catch (InterruptedException | ExecutionException e) {
+      logger.error("unable to open flight recorder segment {}, recording stopped",
+          segmentIndex + 1, e);
+      segment = null;
+      return false;
+    }
+    segmentIndex++;
+    recordCount = 0;
+    prepareNextSegment();
+    return true;
+  }
+
+  private void prepareNextSegment() {
+    int next = segmentIndex + 1;
+    int oldest = segmentIndex - maxSegments + 1;
+    nextSegment = maintenance.submit(() -> {
+      deleteOldSegments(oldest);
+      return createSegment(next);
+    });
+  }
+
+  private MappedByteBuffer createSegment(int index) throws IOException {
+    Path path = directory.resolve(String.format("%s%06d%s", kSegmentPrefix, index,
+        kSegmentSuffix));
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      int size = headerBytes + recordCapacity * (8 + 8 * encodedNames.length);
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(kMagic).putInt(kVersion).putInt(encodedNames.length).putInt(0);
+    for (byte[] name : encodedNames) {
+      buffer.putShort((short) name.length).put(name);
+    }
+    buffer.position(headerBytes);
+    return buffer;
+  }
+
+  private void deleteOldSegments(int oldest) {
+    try (Stream<Path> paths = Files.list(directory)) {
+      paths.filter(p -> {
+        int index = segmentIndexOf(p);
+        return index >= 0 && index < oldest;
+      }).forEach(p -> {
+        try {
+          Files.delete(p);
+        } catch (IOException e) {
+          logger.warn("unable to delete old segment {}", p, e);
+        }
+      });
+    } catch (IOException e) {
+      logger.warn("unable to list {}", directory, e);
+    }
+  }
+
+  static int segmentIndexOf(Path path) {
+    String name = path.getFileName().toString();
+    if (!name.startsWith(kSegmentPrefix) || !name.endsWith(kSegmentSuffix)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(
+          name.substring(kSegmentPrefix.length(), name.length() - kSegmentSuffix.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.interfaces.Gyro;
+
+/**
+ * Simulated gyro integrated from the simulated chassis yaw rate. Like the navX, angle increases
+ * clockwise.
+ */
+public class SimGyro implements Gyro {
+
+  private double angleDegrees;
+  private double rateDegreesPerSecond;
+
+  /**
+   * Integrates the counter-clockwise chassis rate over {@code dtSeconds}.
+   */
+  public void step(double omegaRadiansPerSecond, double dtSeconds) {
+    rateDegreesPerSecond = -Math.toDegrees(omegaRadiansPerSecond);
+    angleDegrees += rateDegreesPerSecond * dtSeconds;
+  }
+
+  @Override
+  public void calibrate() {
+  }
+
+  @Override
+  public void reset() {
+    angleDegrees = 0.0;
+    rateDegreesPerSecond = 0.0;
+  }
+
+  @Override
+  public double getAngle() {
+    return angleDegrees;
+  }
+
+  @Override
+  public double getRate() {
+    return rateDegreesPerSecond;
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,105 @@
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.kinematics.SwerveModuleState;
+import org.jetbrains.annotations.NotNull;
+import org.strykeforce.swerve.SwerveModule;
+
+/**
+ * Simulated swerve module with first-order azimuth and drive wheel response. It takes the place
+ * of a {@code TalonSwerveModule} when the drive runs without hardware.
+ */
+public class SimSwerveModule implements SwerveModule {
+
+  private final Translation2d wheelLocationMeters;
+  private final double maxSpeedMetersPerSecond;
+  private final double azimuthTimeConstant;
+  private final double driveTimeConstant;
+  private double azimuthRadians;
+  private double speedMetersPerSecond;
+  private double desiredAzimuthRadians;
+  private double desiredSpeedMetersPerSecond;
+
+  /**
+   * @param wheelLocationMeters     wheel location relative to robot center
+   * @param maxSpeedMetersPerSecond maximum drive wheel speed
+   * @param azimuthTimeConstant     azimuth response time constant in seconds
+   * @param driveTimeConstant       drive wheel response time constant in seconds
+   */
+  public SimSwerveModule(Translation2d wheelLocationMeters, double maxSpeedMetersPerSecond,
+      double azimuthTimeConstant, double driveTimeConstant) {
+    this.wheelLocationMeters = wheelLocationMeters;
+    this.maxSpeedMetersPerSecond = maxSpeedMetersPerSecond;
+    this.azimuthTimeConstant = azimuthTimeConstant;
+    this.driveTimeConstant = driveTimeConstant;
+  }
+
+  /**
+   * Advances the module physics by {@code dtSeconds}.
+   */
+  public void step(double dtSeconds) {
+    double error = Math.IEEEremainder(desiredAzimuthRadians - azimuthRadians, 2.0 * Math.PI);
+    azimuthRadians = Math.IEEEremainder(
+        azimuthRadians + error * response(dtSeconds, azimuthTimeConstant), 2.0 * Math.PI);
+    speedMetersPerSecond += (desiredSpeedMetersPerSecond - speedMetersPerSecond)
+        * response(dtSeconds, driveTimeConstant);
+  }
+
+  /**
+   * Stops the wheel and points it forward.
+   */
+  public void reset() {
+    azimuthRadians = 0.0;
+    speedMetersPerSecond = 0.0;
+    desiredAzimuthRadians = 0.0;
+    desiredSpeedMetersPerSecond = 0.0;
+  }
+
+  private static double response(double dtSeconds, double timeConstant) {
+    return timeConstant <= 0.0 ? 1.0 : 1.0 - Math.exp(-dtSeconds / timeConstant);
+  }
+
+  @Override
+  public double getMaxSpeedMetersPerSecond() {
+    return maxSpeedMetersPerSecond;
+  }
+
+  @NotNull
+  @Override
+  public Translation2d getWheelLocationMeters() {
+    return wheelLocationMeters;
+  }
+
+  @NotNull
+  @Override
+  public SwerveModuleState getState() {
+    return new SwerveModuleState(speedMetersPerSecond, new Rotation2d(azimuthRadians));
+  }
+
+  @Override
+  public void setDesiredState(@NotNull SwerveModuleState desiredState, boolean isDriveOpenLoop) {
+    var optimized = SwerveModuleState.optimize(desiredState, new Rotation2d(azimuthRadians));
+    desiredAzimuthRadians = optimized.angle.getRadians();
+    desiredSpeedMetersPerSecond = Math.max(-maxSpeedMetersPerSecond,
+        Math.min(maxSpeedMetersPerSecond, optimized.speedMetersPerSecond));
+  }
+
+  @Override
+  public void resetDriveEncoder() {
+  }
+
+  @Override
+  public void storeAzimuthZeroReference() {
+  }
+
+  @Override
+  public void loadAndSetAzimuthZeroReference() {
+  }
+
+  @NotNull
+  @Override
+  public String toString() {
+    return "SimSwerveModule{" + wheelLocationMeters + '}';
+  }
+}
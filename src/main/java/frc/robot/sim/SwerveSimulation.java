@@ -0,0 +1,187 @@
+package frc.robot.sim;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.wpilibj.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.commands.DriveTrajectoryCommand;
+import frc.robot.profiler.LoopProfiler;
+import frc.robot.subsystems.DriveSubsystem;
+import java.util.HashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.strykeforce.swerve.SwerveDrive;
+import org.strykeforce.trapper.TrapperSubsystem;
+
+/**
+ * Runs the {@link DriveSubsystem} against simulated swerve modules and gyro on a stepped HAL clock,
+ * so robot code can be exercised off-robot as fast as the CPU allows.
+ *
+ * <p>Each {@link #step()} advances the module physics and the FPGA clock by one robot period and
+ * then runs the {@link CommandScheduler}. The scheduler is a singleton, so create one simulation
+ * per JVM and {@link #reset()} it between runs.
+ */
+public class SwerveSimulation implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SwerveSimulation.class);
+
+  public static final double kPeriodSeconds = 0.02;
+  public static final double kAzimuthTimeConstant = 0.03;
+  public static final double kDriveTimeConstant = 0.06;
+
+  private final SimSwerveModule[] modules = new SimSwerveModule[4];
+  private final SwerveModuleState[] moduleStates = new SwerveModuleState[4];
+  private final SwerveDriveKinematics kinematics;
+  private final SimGyro gyro = new SimGyro();
+  private final DriveSubsystem driveSubsystem;
+  private final TrapperSubsystem trapperSubsystem;
+  private double timeSeconds;
+
+  public SwerveSimulation() {
+    HAL.initialize(500, 0);
+    SimHooks.pauseTiming();
+    DriverStationSim.setEnabled(true);
+    DriverStationSim.notifyNewData();
+    waitForEnabled();
+
+    var wheelLocations = DriveConstants.getWheelLocationMeters();
+    for (int i = 0; i < 4; i++) {
+      modules[i] = new SimSwerveModule(wheelLocations[i],
+          DriveConstants.kMaxSpeedMetersPerSecond, kAzimuthTimeConstant, kDriveTimeConstant);
+    }
+    kinematics = new SwerveDriveKinematics(wheelLocations);
+    driveSubsystem = new DriveSubsystem(new SwerveDrive(gyro, modules), new LoopProfiler());
+    trapperSubsystem = new TrapperSubsystem("http://localhost:3003", false);
+  }
+
+  // the driver station thread picks up the new control word asynchronously
+  private static void waitForEnabled() {
+    for (int i = 0; i < 100 && !DriverStation.getInstance().isEnabled(); i++) {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    if (!DriverStation.getInstance().isEnabled()) {
+      logger.warn("simulated driver station is not enabled");
+    }
+  }
+
+  /**
+   * Advances module and gyro physics and the FPGA clock by one period, then runs the scheduler.
+   */
+  public void step() {
+    for (int i = 0; i < 4; i++) {
+      modules[i].step(kPeriodSeconds);
+      moduleStates[i] = modules[i].getState();
+    }
+    gyro.step(kinematics.toChassisSpeeds(moduleStates).omegaRadiansPerSecond, kPeriodSeconds);
+    SimHooks.stepTiming(kPeriodSeconds);
+    timeSeconds += kPeriodSeconds;
+    CommandScheduler.getInstance().run();
+  }
+
+  /**
+   * Cancels all commands, stops the modules and resets the gyro and odometry to the origin.
+   */
+  public void reset() {
+    CommandScheduler.getInstance().cancelAll();
+    for (var module : modules) {
+      module.reset();
+    }
+    driveSubsystem.resetGyro();
+    driveSubsystem.resetOdometry(new Pose2d());
+  }
+
+  /**
+   * Resets the simulation, follows {@code trajectory} to completion with a {@link
+   * DriveTrajectoryCommand} and reports how closely the odometry pose tracked it.
+   */
+  public TrackingError followTrajectory(Trajectory trajectory) {
+    reset();
+    var command = new DriveTrajectoryCommand(driveSubsystem, trapperSubsystem, trajectory,
+        new HashMap<>());
+    command.schedule();
+
+    double timeoutSeconds = trajectory.getTotalTimeSeconds() + 1.0;
+    double start = timeSeconds;
+    double max = 0.0;
+    double sumSquares = 0.0;
+    int count = 0;
+    step(); // initialize() and first execute()
+    while (command.isScheduled() && timeSeconds - start < timeoutSeconds) {
+      step();
+      var reference = trajectory.sample(timeSeconds - start - kPeriodSeconds).poseMeters;
+      double error = driveSubsystem.getPoseMeters().getTranslation()
+          .getDistance(reference.getTranslation());
+      max = Math.max(max, error);
+      sumSquares += error * error;
+      count++;
+    }
+    if (command.isScheduled()) {
+      command.cancel();
+      logger.warn("trajectory command did not finish in {} sec", timeoutSeconds);
+    }
+    var finalError = driveSubsystem.getPoseMeters().getTranslation()
+        .getDistance(trajectory.sample(trajectory.getTotalTimeSeconds()).poseMeters
+            .getTranslation());
+    return new TrackingError(max, count == 0 ? 0.0 : Math.sqrt(sumSquares / count), finalError);
+  }
+
+  public DriveSubsystem getDriveSubsystem() {
+    return driveSubsystem;
+  }
+
+  public SimSwerveModule[] getModules() {
+    return modules;
+  }
+
+  public SimGyro getGyro() {
+    return gyro;
+  }
+
+  /**
+   * Returns simulated seconds elapsed since construction.
+   */
+  public double getTimeSeconds() {
+    return timeSeconds;
+  }
+
+  @Override
+  public void close() {
+    var scheduler = CommandScheduler.getInstance();
+    scheduler.cancelAll();
+    scheduler.unregisterSubsystem(driveSubsystem, trapperSubsystem);
+    SimHooks.resumeTiming();
+  }
+
+  /**
+   * Translation error between the odometry pose and the trajectory reference, in meters.
+   */
+  public static final class TrackingError {
+
+    public final double maxMeters;
+    public final double rmsMeters;
+    public final double finalMeters;
+
+    TrackingError(double maxMeters, double rmsMeters, double finalMeters) {
+      this.maxMeters = maxMeters;
+      this.rmsMeters = rmsMeters;
+      this.finalMeters = finalMeters;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("TrackingError{max=%.3f m, rms=%.3f m, final=%.3f m}",
+          maxMeters, rmsMeters, finalMeters);
+    }
+  }
+}
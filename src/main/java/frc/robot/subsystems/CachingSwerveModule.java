@@ -0,0 +1,128 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.kinematics.SwerveModuleState;
+import org.jetbrains.annotations.NotNull;
+import org.strykeforce.swerve.SwerveModule;
+
+/**
+ * Swerve module decorator that drops desired states that haven't changed since the last one sent,
+ * saving the azimuth and drive Talon CAN writes that {@code SwerveDrive} makes every loop. A state
+ * is passed through when speed or angle moves by more than its epsilon, the drive control mode
+ * changes, or the refresh interval has elapsed since the last write.
+ *
+ * <p>Each suppressed state counts as two suppressed writes, one per Talon.
+ */
+final class CachingSwerveModule implements SwerveModule {
+
+  private final SwerveModule delegate;
+  private final double speedEpsilon;
+  private final double angleEpsilon;
+  private final long refreshMicros;
+  private boolean hasLast;
+  private double lastSpeed;
+  private double lastAngle;
+  private boolean lastOpenLoop;
+  private long lastWriteMicros;
+  private long suppressedWrites;
+  private Runnable listener = () -> {
+  };
+
+  /**
+   * @param delegate              the module that writes to the Talons
+   * @param speedEpsilon          speed change in meters per second that is sent
+   * @param angleEpsilonRadians   azimuth change in radians that is sent
+   * @param refreshSeconds        maximum time between writes
+   */
+  CachingSwerveModule(SwerveModule delegate, double speedEpsilon, double angleEpsilonRadians,
+      double refreshSeconds) {
+    this.delegate = delegate;
+    this.speedEpsilon = speedEpsilon;
+    this.angleEpsilon = angleEpsilonRadians;
+    this.refreshMicros = (long) (refreshSeconds * 1e6);
+  }
+
+  SwerveModule getDelegate() {
+    return delegate;
+  }
+
+  long getSuppressedWrites() {
+    return suppressedWrites;
+  }
+
+  /**
+   * Sets a callback run on every desired state, before it is checked.
+   */
+  void setListener(Runnable listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Forces the next desired state to be sent.
+   */
+  void invalidate() {
+    hasLast = false;
+  }
+
+  @Override
+  public void setDesiredState(@NotNull SwerveModuleState desiredState, boolean isDriveOpenLoop) {
+    listener.run();
+    long now = RobotController.getFPGATime();
+    double speed = desiredState.speedMetersPerSecond;
+    double angle = desiredState.angle.getRadians();
+    if (hasLast
+        && isDriveOpenLoop == lastOpenLoop
+        && now - lastWriteMicros < refreshMicros
+        && Math.abs(speed - lastSpeed) <= speedEpsilon
+        && Math.abs(Math.IEEEremainder(angle - lastAngle, 2.0 * Math.PI)) <= angleEpsilon) {
+      suppressedWrites += 2;
+      return;
+    }
+    delegate.setDesiredState(desiredState, isDriveOpenLoop);
+    hasLast = true;
+    lastSpeed = speed;
+    lastAngle = angle;
+    lastOpenLoop = isDriveOpenLoop;
+    lastWriteMicros = now;
+  }
+
+  @Override
+  public double getMaxSpeedMetersPerSecond() {
+    return delegate.getMaxSpeedMetersPerSecond();
+  }
+
+  @NotNull
+  @Override
+  public Translation2d getWheelLocationMeters() {
+    return delegate.getWheelLocationMeters();
+  }
+
+  @NotNull
+  @Override
+  public SwerveModuleState getState() {
+    return delegate.getState();
+  }
+
+  @Override
+  public void resetDriveEncoder() {
+    delegate.resetDriveEncoder();
+  }
+
+  @Override
+  public void storeAzimuthZeroReference() {
+    delegate.storeAzimuthZeroReference();
+  }
+
+  @Override
+  public void loadAndSetAzimuthZeroReference() {
+    delegate.loadAndSetAzimuthZeroReference();
+    invalidate();
+  }
+
+  @NotNull
+  @Override
+  public String toString() {
+    return "CachingSwerveModule{" + delegate + '}';
+  }
+}
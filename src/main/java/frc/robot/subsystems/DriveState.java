@@ -0,0 +1,115 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.kinematics.SwerveModuleState;
+import frc.robot.kinematics.QuadSwerveKinematics;
+import org.strykeforce.swerve.SwerveDrive;
+import org.strykeforce.swerve.SwerveModule;
+
+/**
+ * Snapshot of the drive taken once per loop by {@link DriveSubsystem#periodic()}. Consumers read
+ * it instead of querying the swerve drive and gyro directly, so every reader sees the same values
+ * within a loop and the hardware is read once. The same instance is refreshed each loop and is
+ * read-only outside this package.
+ *
+ * <p>Robot-relative chassis speeds are computed from the measured module states by forward
+ * kinematics.
+ */
+public final class DriveState {
+
+  private final SwerveModule[] swerveModules;
+  private final double[] moduleSpeeds;
+  private final double[] moduleAngles;
+  private final QuadSwerveKinematics kinematics;
+  private final double[] chassisSpeeds = new double[3];
+  private double timestampSeconds;
+  private Pose2d pose = new Pose2d();
+  private Rotation2d heading = new Rotation2d();
+  private double gyroAngle;
+
+  DriveState(SwerveModule[] swerveModules, QuadSwerveKinematics kinematics) {
+    this.swerveModules = swerveModules;
+    this.kinematics = kinematics;
+    moduleSpeeds = new double[swerveModules.length];
+    moduleAngles = new double[swerveModules.length];
+  }
+
+  void update(double timestampSeconds, Pose2d pose, SwerveDrive swerveDrive) {
+    this.timestampSeconds = timestampSeconds;
+    this.pose = pose;
+    heading = swerveDrive.getHeading();
+    gyroAngle = swerveDrive.getGyroAngle();
+    for (int i = 0; i < swerveModules.length; i++) {
+      SwerveModuleState state = swerveModules[i].getState();
+      moduleSpeeds[i] = state.speedMetersPerSecond;
+      moduleAngles[i] = state.angle.getRadians();
+    }
+    kinematics.toChassisSpeeds(moduleSpeeds, moduleAngles, chassisSpeeds);
+  }
+
+  void updatePose(Pose2d pose) {
+    this.pose = pose;
+  }
+
+  /**
+   * Returns the FPGA time in seconds when this snapshot was taken.
+   */
+  public double getTimestampSeconds() {
+    return timestampSeconds;
+  }
+
+  /**
+   * Returns the odometry pose; x and y are in meters.
+   */
+  public Pose2d getPoseMeters() {
+    return pose;
+  }
+
+  /**
+   * Returns the gyro heading.
+   */
+  public Rotation2d getHeading() {
+    return heading;
+  }
+
+  /**
+   * Returns the raw, unwrapped gyro angle in degrees.
+   */
+  public double getGyroAngle() {
+    return gyroAngle;
+  }
+
+  public int getModuleCount() {
+    return moduleSpeeds.length;
+  }
+
+  public double getModuleSpeedMetersPerSecond(int module) {
+    return moduleSpeeds[module];
+  }
+
+  public double getModuleAngleRadians(int module) {
+    return moduleAngles[module];
+  }
+
+  /**
+   * Returns the measured robot-relative forward velocity in meters per second.
+   */
+  public double getChassisVx() {
+    return chassisSpeeds[QuadSwerveKinematics.VX];
+  }
+
+  /**
+   * Returns the measured robot-relative sideways velocity in meters per second.
+   */
+  public double getChassisVy() {
+    return chassisSpeeds[QuadSwerveKinematics.VY];
+  }
+
+  /**
+   * Returns the measured angular velocity in radians per second, counter-clockwise positive.
+   */
+  public double getChassisOmega() {
+    return chassisSpeeds[QuadSwerveKinematics.OMEGA];
+  }
+}
@@ -1,15 +1,30 @@
 package frc.robot.subsystems;
 
+import static frc.robot.Constants.kTalonConfigReadTimeout;
 import static frc.robot.Constants.kTalonConfigTimeout;
+import static frc.robot.profiler.InputLatency.Stage.CAN_WRITE;
+import static frc.robot.profiler.InputLatency.Stage.KINEMATICS_DONE;
 
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.TalonFX;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.geometry.Translation2d;
 import edu.wpi.first.wpilibj.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.wpilibj.kinematics.SwerveModuleState;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.kinematics.QuadSwerveKinematics;
+import frc.robot.profiler.InputLatency;
+import frc.robot.profiler.LoopProfiler;
+import frc.robot.talon.CanBusModel;
+import frc.robot.talon.StatusFrameDevice;
+import frc.robot.talon.StatusFrameProfile;
+import frc.robot.talon.TalonConfigDevice;
+import frc.robot.talon.TalonConfigurator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -17,7 +32,6 @@ import org.slf4j.LoggerFactory;
 import org.strykeforce.swerve.SwerveDrive;
 import org.strykeforce.swerve.SwerveModule;
 import org.strykeforce.swerve.TalonSwerveModule;
-import org.strykeforce.telemetry.TelemetryService;
 import org.strykeforce.telemetry.measurable.MeasurableSubsystem;
 import org.strykeforce.telemetry.measurable.Measure;
 
@@ -25,11 +39,89 @@ public class DriveSubsystem extends MeasurableSubsystem {
 
   private static final Logger logger = LoggerFactory.getLogger(DriveSubsystem.class);
   private final SwerveDrive swerveDrive;
+  private final DriveState driveState;
+  private final SwerveModule[] swerveModules;
+  private final QuadSwerveKinematics kinematics;
+  private final double maxSpeedMetersPerSecond;
+  private final double[] moduleSpeeds = new double[QuadSwerveKinematics.kModuleCount];
+  private final double[] moduleAngles = new double[QuadSwerveKinematics.kModuleCount];
+  private final SwerveModuleState[] desiredStates = new SwerveModuleState[
+      QuadSwerveKinematics.kModuleCount];
+  private final OdometryThread odometryThread;
+  private final PoseHistory poseHistory = new PoseHistory(DriveConstants.kPoseHistoryCapacity);
+  private final double[] correctedPose = new double[3];
+  private final LoopProfiler.Section periodicSection;
+  private final List<StatusFrameDevice> azimuthFrameDevices = new ArrayList<>();
+  private final List<StatusFrameDevice> driveFrameDevices = new ArrayList<>();
+  private StatusFrameProfile statusFrameProfile;
+  private double estimatedCanLoad;
+  private final List<CachingSwerveModule> cachingModules = new ArrayList<>();
+  private final List<TalonSwerveModule> talonModules = new ArrayList<>();
+  private final InputLatency inputLatency;
 
   /**
    * Uses the Third Coast SwerveDrive.
    */
-  public DriveSubsystem(TelemetryService telemetryService) {
+  public DriveSubsystem(LoopProfiler loopProfiler) {
+    this(new SwerveDrive(cacheSetpoints(createTalonSwerveModules())), loopProfiler);
+  }
+
+  /**
+   * Uses the given swerve drive, for example one built from simulated modules and gyro.
+   */
+  public DriveSubsystem(SwerveDrive swerveDrive, LoopProfiler loopProfiler) {
+    this.swerveDrive = swerveDrive;
+    periodicSection = loopProfiler.section("DriveSubsystem.periodic");
+    inputLatency = loopProfiler.getInputLatency();
+    swerveDrive.resetGyro();
+    swerveModules = swerveDrive.getSwerveModules();
+    var wheelLocations = new Translation2d[swerveModules.length];
+    for (int i = 0; i < swerveModules.length; i++) {
+      wheelLocations[i] = swerveModules[i].getWheelLocationMeters();
+    }
+    kinematics = new QuadSwerveKinematics(wheelLocations);
+    maxSpeedMetersPerSecond = swerveModules[0].getMaxSpeedMetersPerSecond();
+    for (int i = 0; i < desiredStates.length; i++) {
+      desiredStates[i] = new SwerveModuleState();
+    }
+    driveState = new DriveState(swerveModules, kinematics);
+    driveState.update(Timer.getFPGATimestamp(), swerveDrive.getPoseMeters(), swerveDrive);
+
+    for (var module : swerveDrive.getSwerveModules()) {
+      if (module instanceof CachingSwerveModule) {
+        cachingModules.add((CachingSwerveModule) module);
+        ((CachingSwerveModule) module).setListener(() -> inputLatency.mark(KINEMATICS_DONE));
+        module = ((CachingSwerveModule) module).getDelegate();
+      }
+      if (module instanceof TalonSwerveModule) {
+        var talonModule = (TalonSwerveModule) module;
+        talonModules.add(talonModule);
+        azimuthFrameDevices.add(StatusFrameDevice.of(talonModule.getAzimuthTalon()));
+        driveFrameDevices.add(StatusFrameDevice.of(talonModule.getDriveTalon()));
+      }
+    }
+    setStatusFrameProfile(StatusFrameProfile.DISABLED);
+
+    if (DriveConstants.kOdometryThreadEnabled) {
+      odometryThread = new OdometryThread(swerveDrive, poseHistory,
+          DriveConstants.kOdometryPeriodSeconds);
+      odometryThread.start();
+      logger.info("odometry thread running at {} Hz", 1.0 / DriveConstants.kOdometryPeriodSeconds);
+    } else {
+      odometryThread = null;
+    }
+  }
+
+  private static SwerveModule[] cacheSetpoints(SwerveModule[] modules) {
+    var cached = new SwerveModule[modules.length];
+    for (int i = 0; i < modules.length; i++) {
+      cached[i] = new CachingSwerveModule(modules[i], DriveConstants.kSetpointSpeedEpsilon,
+          DriveConstants.kSetpointAngleEpsilonRadians, DriveConstants.kSetpointRefreshSeconds);
+    }
+    return cached;
+  }
+
+  private static TalonSwerveModule[] createTalonSwerveModules() {
     var moduleBuilder = new TalonSwerveModule.Builder()
         .driveGearRatio(DriveConstants.kDriveGearRatio)
         .wheelDiameterInches(DriveConstants.kWheelDiameterInches)
@@ -37,18 +129,26 @@ public class DriveSubsystem extends MeasurableSubsystem {
 
     TalonSwerveModule[] swerveModules = new TalonSwerveModule[4];
     Translation2d[] wheelLocations = DriveConstants.getWheelLocationMeters();
+    TalonSRX[] azimuthTalons = new TalonSRX[4];
+    TalonFX[] driveTalons = new TalonFX[4];
+    var configurator = new TalonConfigurator(kTalonConfigTimeout, kTalonConfigReadTimeout);
 
     for (int i = 0; i < 4; i++) {
-      var azimuthTalon = new TalonSRX(i);
-      azimuthTalon.configFactoryDefault(kTalonConfigTimeout);
-      azimuthTalon.configAllSettings(DriveConstants.getAzimuthTalonConfig(), kTalonConfigTimeout);
+      azimuthTalons[i] = new TalonSRX(i);
+      driveTalons[i] = new TalonFX(i + 10);
+      configurator.add(TalonConfigDevice.of(azimuthTalons[i]),
+          DriveConstants.getAzimuthTalonConfig());
+      configurator.add(TalonConfigDevice.of(driveTalons[i]), DriveConstants.getDriveTalonConfig());
+    }
+    configurator.apply();
+
+    for (int i = 0; i < 4; i++) {
+      var azimuthTalon = azimuthTalons[i];
       azimuthTalon.enableCurrentLimit(true);
       azimuthTalon.enableVoltageCompensation(true);
       azimuthTalon.setNeutralMode(NeutralMode.Coast);
 
-      var driveTalon = new TalonFX(i + 10);
-      driveTalon.configFactoryDefault(kTalonConfigTimeout);
-      driveTalon.configAllSettings(DriveConstants.getDriveTalonConfig(), kTalonConfigTimeout);
+      var driveTalon = driveTalons[i];
       driveTalon.enableVoltageCompensation(true);
       driveTalon.setNeutralMode(NeutralMode.Brake);
 
@@ -59,12 +159,8 @@ public class DriveSubsystem extends MeasurableSubsystem {
           .build();
 
       swerveModules[i].loadAndSetAzimuthZeroReference();
-      telemetryService.register(azimuthTalon);
-      telemetryService.register(driveTalon);
     }
-
-    swerveDrive = new SwerveDrive(swerveModules);
-    swerveDrive.resetGyro();
+    return swerveModules;
   }
 
   /**
@@ -83,31 +179,97 @@ public class DriveSubsystem extends MeasurableSubsystem {
     return swerveDrive.getSwerveModules();
   }
 
+  /**
+   * Returns the Talon modules underneath any setpoint caching, empty when simulated.
+   */
+  public List<TalonSwerveModule> getTalonSwerveModules() {
+    return talonModules;
+  }
+
   /**
    * Resets the robot's position on the field.
    *
    * @param pose the current pose
    */
   public void resetOdometry(Pose2d pose) {
-    swerveDrive.resetOdometry(pose);
+    synchronized (poseHistory) {
+      swerveDrive.resetOdometry(pose);
+      poseHistory.clear();
+      publishPose();
+    }
     logger.info("reset odometry with pose = {}", pose);
   }
 
   /**
-   * Returns the position of the robot on the field.
+   * Fuses a delayed pose measurement, such as a vision estimate, taken at a past time. The pose
+   * history at that time is replaced by the measurement, the odometry recorded since is replayed
+   * on top of it and odometry is reset to the result.
+   *
+   * @param measuredPose     the measured pose
+   * @param timestampSeconds the FPGA time the measurement was taken
+   * @return false if the measurement is older than the pose history
+   */
+  public boolean addPoseMeasurement(Pose2d measuredPose, double timestampSeconds) {
+    synchronized (poseHistory) {
+      if (!poseHistory.applyCorrection(timestampSeconds, measuredPose.getX(),
+          measuredPose.getY(), measuredPose.getRotation().getRadians(), correctedPose)) {
+        return false;
+      }
+      swerveDrive.resetOdometry(new Pose2d(correctedPose[PoseHistory.X],
+          correctedPose[PoseHistory.Y], new Rotation2d(correctedPose[PoseHistory.HEADING])));
+      publishPose();
+    }
+    return true;
+  }
+
+  /**
+   * Returns the pose history filled on each odometry update.
+   */
+  public PoseHistory getPoseHistory() {
+    return poseHistory;
+  }
+
+  private void publishPose() {
+    Pose2d pose = swerveDrive.getPoseMeters();
+    if (odometryThread != null) {
+      odometryThread.publish(pose);
+    }
+    driveState.updatePose(pose);
+  }
+
+  /**
+   * Returns the position of the robot on the field as of the start of this loop.
    *
    * @return the pose of the robot (x and y ane in meters)
    */
   public Pose2d getPoseMeters() {
-    return swerveDrive.getPoseMeters();
+    return driveState.getPoseMeters();
   }
 
   /**
-   * Perform periodic swerve drive odometry update.
+   * Returns the drive state snapshot taken at the start of this loop.
+   */
+  public DriveState getDriveState() {
+    return driveState;
+  }
+
+  /**
+   * Perform periodic swerve drive odometry update and take this loop's drive state snapshot. When
+   * the odometry thread is enabled, the snapshot takes the latest pose it published instead.
    */
   @Override
   public void periodic() {
-    swerveDrive.periodic();
+    periodicSection.start();
+    if (odometryThread != null) {
+      driveState.update(Timer.getFPGATimestamp(), odometryThread.getPoseMeters(), swerveDrive);
+    } else {
+      swerveDrive.periodic();
+      double timestamp = Timer.getFPGATimestamp();
+      Pose2d pose = swerveDrive.getPoseMeters();
+      poseHistory.record(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+      driveState.update(timestamp, pose, swerveDrive);
+    }
+    periodicSection.stop();
   }
 
   /**
@@ -115,7 +277,8 @@ public class DriveSubsystem extends MeasurableSubsystem {
    */
   public void drive(double vxMetersPerSecond, double vyMetersPerSecond,
       double omegaRadiansPerSecond) {
-    swerveDrive.drive(vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond, true);
+    driveModules(vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond, true, true);
+    inputLatency.mark(CAN_WRITE);
   }
 
   /**
@@ -123,15 +286,79 @@ public class DriveSubsystem extends MeasurableSubsystem {
    */
   public void move(double vxMetersPerSecond, double vyMetersPerSecond,
       double omegaRadiansPerSecond, boolean isFieldOriented) {
-    swerveDrive.move(vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond, isFieldOriented);
+    driveModules(vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond, isFieldOriented,
+        false);
+  }
+
+  /**
+   * Does what {@code SwerveDrive.drive()} and {@code move()} do, with primitive kinematics. Each
+   * module optimizes its own desired state against its azimuth position. Field-relative driving
+   * uses the heading from this loop's snapshot rather than reading the gyro again.
+   */
+  private void driveModules(double vxMetersPerSecond, double vyMetersPerSecond,
+      double omegaRadiansPerSecond, boolean isFieldOriented, boolean isDriveOpenLoop) {
+    if (isFieldOriented) {
+      kinematics.toModuleStatesFieldRelative(vxMetersPerSecond, vyMetersPerSecond,
+          omegaRadiansPerSecond, driveState.getHeading().getRadians(), moduleSpeeds,
+          moduleAngles);
+    } else {
+      kinematics.toModuleStates(vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond,
+          moduleSpeeds, moduleAngles);
+    }
+    QuadSwerveKinematics.desaturate(moduleSpeeds, maxSpeedMetersPerSecond);
+    for (int i = 0; i < swerveModules.length; i++) {
+      desiredStates[i].speedMetersPerSecond = moduleSpeeds[i];
+      desiredStates[i].angle = new Rotation2d(moduleAngles[i]);
+      swerveModules[i].setDesiredState(desiredStates[i], isDriveOpenLoop);
+    }
   }
 
   public void resetGyro() {
-    swerveDrive.resetGyro();
+    synchronized (poseHistory) {
+      swerveDrive.resetGyro();
+    }
+    driveState.update(Timer.getFPGATimestamp(), driveState.getPoseMeters(), swerveDrive);
   }
 
   public Rotation2d getHeading() {
-    return swerveDrive.getHeading();
+    return driveState.getHeading();
+  }
+
+  /**
+   * Switches the drive Talons to a status frame profile, for example on a robot mode transition.
+   * Frame periods are sent without waiting for confirmation so this doesn't stall the loop.
+   */
+  public void setStatusFrameProfile(StatusFrameProfile profile) {
+    if (profile == statusFrameProfile) {
+      return;
+    }
+    for (var device : azimuthFrameDevices) {
+      profile.applyAzimuth(device, 0);
+    }
+    for (var device : driveFrameDevices) {
+      profile.applyDrive(device, 0);
+    }
+    statusFrameProfile = profile;
+    estimatedCanLoad = CanBusModel.estimateLoad(profile, azimuthFrameDevices.size(),
+        driveFrameDevices.size());
+    logger.info("status frame profile {}, estimated CAN load {}%", profile,
+        String.format("%.1f", estimatedCanLoad * 100.0));
+  }
+
+  public StatusFrameProfile getStatusFrameProfile() {
+    return statusFrameProfile;
+  }
+
+  /**
+   * Returns the number of azimuth and drive Talon writes skipped because the module setpoint
+   * hadn't changed.
+   */
+  public long getSuppressedSetpointWrites() {
+    long count = 0;
+    for (var module : cachingModules) {
+      count += module.getSuppressedWrites();
+    }
+    return count;
   }
 
   // Measurable Support
@@ -141,12 +368,17 @@ public class DriveSubsystem extends MeasurableSubsystem {
   public Set<Measure> getMeasures() {
     return Set
         .of(
-            new Measure("Gyro Rotation2d (deg)", () -> swerveDrive.getHeading().getDegrees()),
-            new Measure("Gyro Angle (deg)", swerveDrive::getGyroAngle),
-            new Measure("Odometry X", () -> swerveDrive.getPoseMeters().getX()),
-            new Measure("Odometry Y", () -> swerveDrive.getPoseMeters().getY()),
+            new Measure("Gyro Rotation2d (deg)", () -> driveState.getHeading().getDegrees()),
+            new Measure("Gyro Angle (deg)", driveState::getGyroAngle),
+            new Measure("Odometry X", () -> driveState.getPoseMeters().getX()),
+            new Measure("Odometry Y", () -> driveState.getPoseMeters().getY()),
             new Measure("Odometry Rotation2d (deg)",
-                () -> swerveDrive.getPoseMeters().getRotation().getDegrees())
+                () -> driveState.getPoseMeters().getRotation().getDegrees()),
+            new Measure("Chassis Vx", driveState::getChassisVx),
+            new Measure("Chassis Vy", driveState::getChassisVy),
+            new Measure("Chassis Omega", driveState::getChassisOmega),
+            new Measure("Estimated CAN Load (%)", () -> estimatedCanLoad * 100.0),
+            new Measure("Suppressed Setpoint Writes", this::getSuppressedSetpointWrites)
         );
   }
 
@@ -0,0 +1,79 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import org.strykeforce.swerve.SwerveDrive;
+
+/**
+ * Runs swerve drive odometry on its own {@link Notifier} at a higher rate than the main robot
+ * loop. The odometry thread publishes each new pose; readers get the latest immutable {@link
+ * Pose2d} through a volatile reference and never block.
+ *
+ * <p>Each update is also recorded in the {@link PoseHistory}, which doubles as the lock that
+ * odometry resets and corrections on the main thread take so they can't interleave with an update
+ * in progress. Updates never wait on the main thread otherwise.
+ */
+final class OdometryThread {
+
+  private final SwerveDrive swerveDrive;
+  private final double periodSeconds;
+  private final PoseHistory poseHistory;
+  private final Notifier notifier;
+  private volatile Pose2d pose;
+  private volatile double timestampSeconds;
+
+  /**
+   * @param swerveDrive   the swerve drive to update
+   * @param poseHistory   the history to record updates in
+   * @param periodSeconds the update period, for example 0.005 for 200 Hz
+   */
+  OdometryThread(SwerveDrive swerveDrive, PoseHistory poseHistory, double periodSeconds) {
+    this.swerveDrive = swerveDrive;
+    this.poseHistory = poseHistory;
+    this.periodSeconds = periodSeconds;
+    pose = swerveDrive.getPoseMeters();
+    notifier = new Notifier(this::update);
+    notifier.setName("Odometry");
+  }
+
+  void start() {
+    notifier.startPeriodic(periodSeconds);
+  }
+
+  void stop() {
+    notifier.stop();
+  }
+
+  private void update() {
+    synchronized (poseHistory) {
+      swerveDrive.periodic();
+      double timestamp = Timer.getFPGATimestamp();
+      Pose2d pose = swerveDrive.getPoseMeters();
+      poseHistory.record(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+      timestampSeconds = timestamp;
+      this.pose = pose;
+    }
+  }
+
+  /**
+   * Returns the most recently published pose without blocking.
+   */
+  Pose2d getPoseMeters() {
+    return pose;
+  }
+
+  /**
+   * Returns the FPGA time in seconds of the most recent update.
+   */
+  double getTimestampSeconds() {
+    return timestampSeconds;
+  }
+
+  /**
+   * Publishes a pose set by the main thread, which must hold the pose history lock.
+   */
+  void publish(Pose2d pose) {
+    this.pose = pose;
+  }
+}
@@ -0,0 +1,171 @@
+package frc.robot.subsystems;
+
+/**
+ * Fixed-capacity ring buffer of timestamped poses recorded on each odometry update. It answers
+ * "where was the robot at time t" for latency-compensated fusion of delayed measurements, and can
+ * apply a correction at a past time by replaying the recorded odometry motion forward from it.
+ *
+ * <p>Poses are stored in primitive columns and queries write into caller-supplied arrays, so
+ * nothing here allocates after construction. Methods are synchronized because the odometry thread
+ * may record while the main loop queries.
+ */
+public final class PoseHistory {
+
+  public static final int X = 0;
+  public static final int Y = 1;
+  public static final int HEADING = 2;
+
+  private final int capacity;
+  private final double[] timestamps;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] headings;
+  private int head; // next slot to write
+  private int size;
+
+  public PoseHistory(int capacity) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("capacity must be at least 2: " + capacity);
+    }
+    this.capacity = capacity;
+    timestamps = new double[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    headings = new double[capacity];
+  }
+
+  /**
+   * Records a pose. Timestamps must be increasing; an out-of-order sample is ignored.
+   *
+   * @param timestampSeconds FPGA time of the odometry update
+   * @param x                x in meters
+   * @param y                y in meters
+   * @param heading          heading in radians
+   */
+  public synchronized void record(double timestampSeconds, double x, double y, double heading) {
+    if (size > 0 && timestampSeconds <= timestamps[slot(size - 1)]) {
+      return;
+    }
+    timestamps[head] = timestampSeconds;
+    xs[head] = x;
+    ys[head] = y;
+    headings[head] = heading;
+    head = (head + 1) % capacity;
+    if (size < capacity) {
+      size++;
+    }
+  }
+
+  public synchronized void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Interpolates the pose at {@code timestampSeconds} into {@code pose}, indexed by {@link #X},
+   * {@link #Y} and {@link #HEADING}. Times after the newest sample return the newest pose.
+   *
+   * @return false if the history is empty or the time is older than the oldest sample
+   */
+  public synchronized boolean getPoseAt(double timestampSeconds, double[] pose) {
+    int i = search(timestampSeconds);
+    if (i < 0) {
+      return false;
+    }
+    interpolate(i, timestampSeconds, pose);
+    return true;
+  }
+
+  /**
+   * Replaces the pose at {@code timestampSeconds} with a corrected pose and replays the odometry
+   * motion recorded since then on top of it. Every later sample is rewritten and the corrected
+   * current pose is written into {@code currentPose}.
+   *
+   * @return false if the time is outside the history, in which case nothing changes
+   */
+  public synchronized boolean applyCorrection(double timestampSeconds, double x, double y,
+      double heading, double[] currentPose) {
+    int i = search(timestampSeconds);
+    if (i < 0) {
+      return false;
+    }
+    // historical pose at the correction time
+    interpolate(i, timestampSeconds, currentPose);
+    double oldX = currentPose[X];
+    double oldY = currentPose[Y];
+    double oldHeading = currentPose[HEADING];
+    double cos = Math.cos(heading - oldHeading);
+    double sin = Math.sin(heading - oldHeading);
+
+    // new_j = corrected + R(heading - oldHeading) * (old_j - old), heading shifted likewise
+    int first = timestamps[slot(i)] >= timestampSeconds ? i : i + 1;
+    for (int j = first; j < size; j++) {
+      int s = slot(j);
+      double dx = xs[s] - oldX;
+      double dy = ys[s] - oldY;
+      xs[s] = x + dx * cos - dy * sin;
+      ys[s] = y + dx * sin + dy * cos;
+      headings[s] = wrap(headings[s] + heading - oldHeading);
+    }
+
+    if (first >= size) {
+      currentPose[X] = x;
+      currentPose[Y] = y;
+      currentPose[HEADING] = wrap(heading);
+    } else {
+      int newest = slot(size - 1);
+      currentPose[X] = xs[newest];
+      currentPose[Y] = ys[newest];
+      currentPose[HEADING] = headings[newest];
+    }
+    return true;
+  }
+
+  /**
+   * Returns the logical index of the newest sample at or before {@code time}, the oldest sample if
+   * {@code time} equals it, or -1 if out of range.
+   */
+  private int search(double time) {
+    if (size == 0 || time < timestamps[slot(0)]) {
+      return -1;
+    }
+    int lo = 0;
+    int hi = size - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (timestamps[slot(mid)] <= time) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+  private void interpolate(int i, double time, double[] pose) {
+    int a = slot(i);
+    if (i == size - 1) {
+      pose[X] = xs[a];
+      pose[Y] = ys[a];
+      pose[HEADING] = headings[a];
+      return;
+    }
+    int b = slot(i + 1);
+    double t = (time - timestamps[a]) / (timestamps[b] - timestamps[a]);
+    pose[X] = xs[a] + (xs[b] - xs[a]) * t;
+    pose[Y] = ys[a] + (ys[b] - ys[a]) * t;
+    pose[HEADING] = wrap(headings[a] + wrap(headings[b] - headings[a]) * t);
+  }
+
+  private int slot(int i) {
+    return (head - size + i + capacity) % capacity;
+  }
+
+  private static double wrap(double radians) {
+    return Math.atan2(Math.sin(radians), Math.cos(radians));
+  }
+}
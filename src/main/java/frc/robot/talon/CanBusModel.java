@@ -0,0 +1,94 @@
+package frc.robot.talon;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simulated CAN bus of Talons that records the status frame periods set on it and estimates the
+ * resulting bus utilization. Estimates count each device's status frames plus the control frame
+ * the roboRIO sends it.
+ */
+public final class CanBusModel {
+
+  // 1 Mbps bus, extended 29-bit ID frame with 8 data bytes, before bit stuffing
+  private static final double kBitsPerSecond = 1_000_000.0;
+  private static final double kBitsPerFrame = 131.0;
+  // Phoenix default control frame period
+  private static final double kControlFramePeriodMs = 10.0;
+
+  private final List<Device> devices = new ArrayList<>();
+
+  /**
+   * Returns the fraction of bus bandwidth {@code profile} uses with the given number of azimuth
+   * and drive Talons.
+   */
+  public static double estimateLoad(StatusFrameProfile profile, int azimuthCount,
+      int driveCount) {
+    var bus = new CanBusModel();
+    for (int i = 0; i < azimuthCount; i++) {
+      profile.applyAzimuth(bus.addDevice("azimuth " + i), 0);
+    }
+    for (int i = 0; i < driveCount; i++) {
+      profile.applyDrive(bus.addDevice("drive " + i), 0);
+    }
+    return bus.getLoad();
+  }
+
+  public StatusFrameDevice addDevice(String name) {
+    var device = new Device(name);
+    devices.add(device);
+    return device;
+  }
+
+  /**
+   * Returns estimated frames per second on the bus.
+   */
+  public double getFramesPerSecond() {
+    double frames = 0.0;
+    for (var device : devices) {
+      frames += 1000.0 / kControlFramePeriodMs;
+      for (int period : device.periods.values()) {
+        frames += 1000.0 / period;
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * Returns the estimated fraction of bus bandwidth in use, from 0 to 1 or more if oversubscribed.
+   */
+  public double getLoad() {
+    return getFramesPerSecond() * kBitsPerFrame / kBitsPerSecond;
+  }
+
+  private static final class Device implements StatusFrameDevice {
+
+    private final String name;
+    private final Map<StatusFrameEnhanced, Integer> periods =
+        new EnumMap<>(StatusFrameEnhanced.class);
+
+    Device(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public ErrorCode setStatusFramePeriod(StatusFrameEnhanced frame, int periodMs,
+        int timeoutMs) {
+      if (periodMs <= 0) {
+        periods.remove(frame);
+      } else {
+        periods.put(frame, periodMs);
+      }
+      return ErrorCode.OK;
+    }
+  }
+}
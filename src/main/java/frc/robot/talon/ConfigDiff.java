@@ -0,0 +1,105 @@
+package frc.robot.talon;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares Phoenix configuration objects field by field. Configuration classes are plain objects
+ * with public fields, some of which are nested configurations, so this walks them reflectively.
+ */
+final class ConfigDiff {
+
+  // doubles without a known resolution only need to read back within this fraction
+  private static final double kRelativeTolerance = 1e-3;
+  private static final double kAbsoluteTolerance = 1e-6;
+
+  // the device stores these in fixed point, so a read back is only within one step, by field name
+  private static final double kGainStep = 1.0 / (1 << 22); // 10.22 fixed point
+  private static final double kOutputStep = 1.0 / 1023; // fraction of full output in 10 bits
+  private static final double kRampStep = 0.001; // seconds to full output, in ms
+  private static final Map<String, Double> kResolutions = Map.ofEntries(
+      Map.entry("kP", kGainStep),
+      Map.entry("kI", kGainStep),
+      Map.entry("kD", kGainStep),
+      Map.entry("kF", kGainStep),
+      Map.entry("openloopRamp", kRampStep),
+      Map.entry("closedloopRamp", kRampStep),
+      Map.entry("peakOutputForward", kOutputStep),
+      Map.entry("peakOutputReverse", kOutputStep),
+      Map.entry("nominalOutputForward", kOutputStep),
+      Map.entry("nominalOutputReverse", kOutputStep),
+      Map.entry("closedLoopPeakOutput", kOutputStep),
+      Map.entry("neutralDeadband", kOutputStep),
+      Map.entry("voltageCompSaturation", 1.0 / 256), // 8.8 fixed point volts
+      Map.entry("selectedFeedbackCoefficient", 1.0 / 65536), // 16 bit fraction
+      // stored as whole sensor units
+      Map.entry("integralZone", 1.0),
+      Map.entry("allowableClosedloopError", 1.0),
+      Map.entry("maxIntegralAccumulator", 1.0),
+      Map.entry("motionCruiseVelocity", 1.0),
+      Map.entry("motionAcceleration", 1.0),
+      Map.entry("forwardSoftLimitThreshold", 1.0),
+      Map.entry("reverseSoftLimitThreshold", 1.0));
+
+  // not stored on the device, so never read back
+  private static final String kIgnoredField = "enableOptimizations";
+
+  private ConfigDiff() {
+  }
+
+  /**
+   * Adds the path of every field where {@code actual} differs from {@code expected}.
+   */
+  static void diff(Object expected, Object actual, String prefix, List<String> differences) {
+    for (Class<?> type = expected.getClass(); type != Object.class; type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers)
+            || field.getName().equals(kIgnoredField)) {
+          continue;
+        }
+        var path = prefix + field.getName();
+        try {
+          compare(field.get(expected), field.get(actual), path, differences);
+        } catch (IllegalAccessException e) {
+          differences.add(path);
+        }
+      }
+    }
+  }
+
+  private static void compare(Object expected, Object actual, String path,
+      List<String> differences) {
+    if (expected == null || actual == null) {
+      if (expected != actual) {
+        differences.add(path);
+      }
+    } else if (expected instanceof Double) {
+      double e = (Double) expected;
+      double a = (Double) actual;
+      if (Math.abs(e - a) > tolerance(path, e)) {
+        differences.add(path);
+      }
+    } else if (isNested(expected.getClass())) {
+      diff(expected, actual, path + ".", differences);
+    } else if (!expected.equals(actual)) {
+      differences.add(path);
+    }
+  }
+
+  /**
+   * Returns how far a read back of the double at {@code path} can be from {@code expected} and
+   * still be the same setting.
+   */
+  static double tolerance(String path, double expected) {
+    double relative = Math.max(kAbsoluteTolerance, kRelativeTolerance * Math.abs(expected));
+    var resolution = kResolutions.get(path.substring(path.lastIndexOf('.') + 1));
+    return resolution != null ? Math.max(resolution, relative) : relative;
+  }
+
+  private static boolean isNested(Class<?> type) {
+    return !type.isEnum() && type.getName().startsWith("com.ctre.");
+  }
+}
@@ -0,0 +1,31 @@
+package frc.robot.talon;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+
+/**
+ * The status frame call {@link StatusFrameProfile} makes on a Talon. The adapter for real devices
+ * comes from {@link #of(BaseTalon)}; {@link CanBusModel} supplies simulated ones.
+ */
+public interface StatusFrameDevice {
+
+  String getName();
+
+  ErrorCode setStatusFramePeriod(StatusFrameEnhanced frame, int periodMs, int timeoutMs);
+
+  static StatusFrameDevice of(BaseTalon talon) {
+    return new StatusFrameDevice() {
+      @Override
+      public String getName() {
+        return talon.getClass().getSimpleName() + " " + talon.getDeviceID();
+      }
+
+      @Override
+      public ErrorCode setStatusFramePeriod(StatusFrameEnhanced frame, int periodMs,
+          int timeoutMs) {
+        return talon.setStatusFramePeriod(frame, periodMs, timeoutMs);
+      }
+    };
+  }
+}
@@ -0,0 +1,143 @@
+package frc.robot.talon;
+
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_10_Targets;
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_13_Base_PIDF0;
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_1_General;
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_2_Feedback0;
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_3_Quadrature;
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_4_AinTempVbat;
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_8_PulseWidth;
+import static com.ctre.phoenix.motorcontrol.StatusFrameEnhanced.Status_Brushless_Current;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Named set of status frame periods for the azimuth (Talon SRX) and drive (Talon FX) motors. Every
+ * profile sets every frame the drive Talons send, so switching profiles fully determines their
+ * status traffic.
+ */
+public final class StatusFrameProfile {
+
+  private static final Logger logger = LoggerFactory.getLogger(StatusFrameProfile.class);
+
+  // slowest period the Talons accept
+  private static final int kSlow = 255;
+
+  /**
+   * Robot disabled: only enough feedback to keep odometry and the dashboard roughly current.
+   */
+  public static final StatusFrameProfile DISABLED = new StatusFrameProfile("disabled")
+      .azimuth(Status_1_General, 100).azimuth(Status_2_Feedback0, 100)
+      .azimuth(Status_3_Quadrature, kSlow).azimuth(Status_4_AinTempVbat, kSlow)
+      .azimuth(Status_8_PulseWidth, kSlow).azimuth(Status_10_Targets, kSlow)
+      .azimuth(Status_13_Base_PIDF0, kSlow)
+      .drive(Status_1_General, 100).drive(Status_2_Feedback0, 100)
+      .drive(Status_4_AinTempVbat, kSlow).drive(Status_10_Targets, kSlow)
+      .drive(Status_13_Base_PIDF0, kSlow).drive(Status_Brushless_Current, kSlow);
+
+  /**
+   * Driver control: feedback at the robot loop rate, diagnostics slow.
+   */
+  public static final StatusFrameProfile TELEOP = new StatusFrameProfile("teleop")
+      .azimuth(Status_1_General, 20).azimuth(Status_2_Feedback0, 20)
+      .azimuth(Status_3_Quadrature, kSlow).azimuth(Status_4_AinTempVbat, kSlow)
+      .azimuth(Status_8_PulseWidth, kSlow).azimuth(Status_10_Targets, kSlow)
+      .azimuth(Status_13_Base_PIDF0, kSlow)
+      .drive(Status_1_General, 20).drive(Status_2_Feedback0, 20)
+      .drive(Status_4_AinTempVbat, kSlow).drive(Status_10_Targets, kSlow)
+      .drive(Status_13_Base_PIDF0, kSlow).drive(Status_Brushless_Current, kSlow);
+
+  /**
+   * Trajectory following: sensor feedback twice per robot loop for fresh odometry, everything
+   * else off the bus as much as possible to keep latency low.
+   */
+  public static final StatusFrameProfile AUTONOMOUS_TRAJECTORY =
+      new StatusFrameProfile("autonomous-trajectory")
+          .azimuth(Status_1_General, 20).azimuth(Status_2_Feedback0, 10)
+          .azimuth(Status_3_Quadrature, kSlow).azimuth(Status_4_AinTempVbat, kSlow)
+          .azimuth(Status_8_PulseWidth, kSlow).azimuth(Status_10_Targets, kSlow)
+          .azimuth(Status_13_Base_PIDF0, kSlow)
+          .drive(Status_1_General, 20).drive(Status_2_Feedback0, 10)
+          .drive(Status_4_AinTempVbat, kSlow).drive(Status_10_Targets, kSlow)
+          .drive(Status_13_Base_PIDF0, kSlow).drive(Status_Brushless_Current, kSlow);
+
+  /**
+   * Test mode: everything telemetry can show, at roughly the Phoenix default rates.
+   */
+  public static final StatusFrameProfile DIAGNOSTICS = new StatusFrameProfile("diagnostics")
+      .azimuth(Status_1_General, 10).azimuth(Status_2_Feedback0, 20)
+      .azimuth(Status_3_Quadrature, 100).azimuth(Status_4_AinTempVbat, 100)
+      .azimuth(Status_8_PulseWidth, 100).azimuth(Status_10_Targets, 100)
+      .azimuth(Status_13_Base_PIDF0, 100)
+      .drive(Status_1_General, 10).drive(Status_2_Feedback0, 20)
+      .drive(Status_4_AinTempVbat, 100).drive(Status_10_Targets, 100)
+      .drive(Status_13_Base_PIDF0, 100).drive(Status_Brushless_Current, 50);
+
+  private final String name;
+  private final Map<StatusFrameEnhanced, Integer> azimuthPeriods =
+      new EnumMap<>(StatusFrameEnhanced.class);
+  private final Map<StatusFrameEnhanced, Integer> drivePeriods =
+      new EnumMap<>(StatusFrameEnhanced.class);
+
+  private StatusFrameProfile(String name) {
+    this.name = name;
+  }
+
+  private StatusFrameProfile azimuth(StatusFrameEnhanced frame, int periodMs) {
+    azimuthPeriods.put(frame, periodMs);
+    return this;
+  }
+
+  private StatusFrameProfile drive(StatusFrameEnhanced frame, int periodMs) {
+    drivePeriods.put(frame, periodMs);
+    return this;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Map<StatusFrameEnhanced, Integer> getAzimuthPeriods() {
+    return Collections.unmodifiableMap(azimuthPeriods);
+  }
+
+  public Map<StatusFrameEnhanced, Integer> getDrivePeriods() {
+    return Collections.unmodifiableMap(drivePeriods);
+  }
+
+  /**
+   * Sets the azimuth frame periods on {@code device}. A zero timeout doesn't wait for the Talon to
+   * confirm, which is what mode transitions want.
+   */
+  public void applyAzimuth(StatusFrameDevice device, int timeoutMs) {
+    apply(device, azimuthPeriods, timeoutMs);
+  }
+
+  /**
+   * Sets the drive frame periods on {@code device}.
+   */
+  public void applyDrive(StatusFrameDevice device, int timeoutMs) {
+    apply(device, drivePeriods, timeoutMs);
+  }
+
+  private static void apply(StatusFrameDevice device, Map<StatusFrameEnhanced, Integer> periods,
+      int timeoutMs) {
+    periods.forEach((frame, period) -> {
+      var error = device.setStatusFramePeriod(frame, period, timeoutMs);
+      if (error != ErrorCode.OK) {
+        logger.warn("{} {} period {} ms: {}", device.getName(), frame, period, error);
+      }
+    });
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,104 @@
+package frc.robot.talon;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.can.BaseTalonConfiguration;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.ctre.phoenix.motorcontrol.can.TalonSRXConfiguration;
+
+/**
+ * The configuration calls {@link TalonConfigurator} makes on a Talon. Adapters for real devices
+ * come from {@link #of(TalonSRX)} and {@link #of(TalonFX)}; tests can supply their own.
+ */
+public interface TalonConfigDevice {
+
+  String getName();
+
+  /**
+   * Returns an empty configuration of this device's type to read settings into.
+   */
+  BaseTalonConfiguration newConfiguration();
+
+  ErrorCode getAllConfigs(BaseTalonConfiguration config, int timeoutMs);
+
+  ErrorCode configFactoryDefault(int timeoutMs);
+
+  ErrorCode configAllSettings(BaseTalonConfiguration config, int timeoutMs);
+
+  /**
+   * Writes one setting of {@code config}, as named by {@link TalonSettings#settingOf}, with its
+   * own config call.
+   */
+  ErrorCode configSetting(String setting, BaseTalonConfiguration config, int timeoutMs);
+
+  static TalonConfigDevice of(TalonSRX talon) {
+    return new TalonConfigDevice() {
+      @Override
+      public String getName() {
+        return "TalonSRX " + talon.getDeviceID();
+      }
+
+      @Override
+      public BaseTalonConfiguration newConfiguration() {
+        return new TalonSRXConfiguration();
+      }
+
+      @Override
+      public ErrorCode getAllConfigs(BaseTalonConfiguration config, int timeoutMs) {
+        return talon.getAllConfigs((TalonSRXConfiguration) config, timeoutMs);
+      }
+
+      @Override
+      public ErrorCode configFactoryDefault(int timeoutMs) {
+        return talon.configFactoryDefault(timeoutMs);
+      }
+
+      @Override
+      public ErrorCode configAllSettings(BaseTalonConfiguration config, int timeoutMs) {
+        return talon.configAllSettings((TalonSRXConfiguration) config, timeoutMs);
+      }
+
+      @Override
+      public ErrorCode configSetting(String setting, BaseTalonConfiguration config,
+          int timeoutMs) {
+        return TalonSettings.write(talon, setting, config, timeoutMs);
+      }
+    };
+  }
+
+  static TalonConfigDevice of(TalonFX talon) {
+    return new TalonConfigDevice() {
+      @Override
+      public String getName() {
+        return "TalonFX " + talon.getDeviceID();
+      }
+
+      @Override
+      public BaseTalonConfiguration newConfiguration() {
+        return new TalonFXConfiguration();
+      }
+
+      @Override
+      public ErrorCode getAllConfigs(BaseTalonConfiguration config, int timeoutMs) {
+        return talon.getAllConfigs((TalonFXConfiguration) config, timeoutMs);
+      }
+
+      @Override
+      public ErrorCode configFactoryDefault(int timeoutMs) {
+        return talon.configFactoryDefault(timeoutMs);
+      }
+
+      @Override
+      public ErrorCode configAllSettings(BaseTalonConfiguration config, int timeoutMs) {
+        return talon.configAllSettings((TalonFXConfiguration) config, timeoutMs);
+      }
+
+      @Override
+      public ErrorCode configSetting(String setting, BaseTalonConfiguration config,
+          int timeoutMs) {
+        return TalonSettings.write(talon, setting, config, timeoutMs);
+      }
+    };
+  }
+}
@@ -0,0 +1,189 @@
+package frc.robot.talon;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.can.BaseTalonConfiguration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies configurations to a group of Talons concurrently. Each device's current settings are
+ * read back first and the device is only written if they differ from the desired configuration,
+ * so a reboot with unchanged settings costs one read per device instead of a factory reset and a
+ * full write.
+ *
+ * <p>Differing fields are written one setting at a time with the matching Phoenix call, see {@link
+ * TalonSettings}. If any differing field has no such call, the device gets the factory default and
+ * {@code configAllSettings} instead. The differing fields are logged.
+ *
+ * <p>{@code getAllConfigs} reads back every parameter with a separate request, each waiting up to
+ * the timeout, so reads get their own, longer timeout than writes. A read that fails or times out
+ * is treated as a difference and the device is written.
+ */
+public final class TalonConfigurator {
+
+  private static final Logger logger = LoggerFactory.getLogger(TalonConfigurator.class);
+
+  private final List<TalonConfigDevice> devices = new ArrayList<>();
+  private final List<BaseTalonConfiguration> configs = new ArrayList<>();
+  private final int timeoutMs;
+  private final int readTimeoutMs;
+
+  /**
+   * @param timeoutMs timeout in milliseconds for each configuration write
+   * @param readTimeoutMs timeout in milliseconds for each parameter read back
+   */
+  public TalonConfigurator(int timeoutMs, int readTimeoutMs) {
+    this.timeoutMs = timeoutMs;
+    this.readTimeoutMs = readTimeoutMs;
+  }
+
+  public TalonConfigurator add(TalonConfigDevice device, BaseTalonConfiguration config) {
+    devices.add(device);
+    configs.add(config);
+    return this;
+  }
+
+  /**
+   * Configures all added devices concurrently and waits for them to finish.
+   *
+   * @return one result per device, in the order added
+   */
+  public List<Result> apply() {
+    if (devices.isEmpty()) {
+      return Collections.emptyList();
+    }
+    long start = System.nanoTime();
+    var threadCount = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(devices.size(), r -> {
+      var thread = new Thread(r, "TalonConfig-" + threadCount.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    List<Future<Result>> futures = new ArrayList<>(devices.size());
+    for (int i = 0; i < devices.size(); i++) {
+      var device = devices.get(i);
+      var config = configs.get(i);
+      futures.add(executor.submit(() -> configure(device, config)));
+    }
+
+    List<Result> results = new ArrayList<>(devices.size());
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          results.add(futures.get(i).get());
+        } catch (ExecutionException e) {
+          logger.error("{} configuration failed", devices.get(i).getName(), e.getCause());
+          results.add(new Result(devices.get(i).getName(), true, Collections.emptyList(),
+              ErrorCode.GeneralError, 0.0));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("interrupted while configuring Talons");
+    } finally {
+      executor.shutdownNow();
+    }
+    logger.info("configured {} Talons in {} ms", devices.size(),
+        String.format("%.1f", (System.nanoTime() - start) / 1e6));
+    return results;
+  }
+
+  private Result configure(TalonConfigDevice device, BaseTalonConfiguration config) {
+    long start = System.nanoTime();
+    List<String> differences = new ArrayList<>();
+    var current = device.newConfiguration();
+    var error = device.getAllConfigs(current, readTimeoutMs);
+    Set<String> settings = null;
+    if (error != ErrorCode.OK) {
+      differences.add("<read failed: " + error + ">");
+    } else {
+      ConfigDiff.diff(config, current, "", differences);
+      settings = settingsOf(config, differences);
+    }
+
+    boolean written = !differences.isEmpty();
+    if (written && settings != null) {
+      error = ErrorCode.OK;
+      for (String setting : settings) {
+        var writeError = device.configSetting(setting, config, timeoutMs);
+        if (error == ErrorCode.OK) {
+          error = writeError;
+        }
+      }
+    } else if (written) {
+      error = device.configFactoryDefault(timeoutMs);
+      var writeError = device.configAllSettings(config, timeoutMs);
+      if (error == ErrorCode.OK) {
+        error = writeError;
+      }
+    }
+
+    double elapsedMillis = (System.nanoTime() - start) / 1e6;
+    if (written) {
+      logger.info("{} configured in {} ms with {}, changed: {}", device.getName(),
+          String.format("%.1f", elapsedMillis),
+          settings != null ? settings.size() + " setting writes" : "a full write", differences);
+    } else {
+      logger.info("{} already configured, checked in {} ms", device.getName(),
+          String.format("%.1f", elapsedMillis));
+    }
+    if (error != ErrorCode.OK) {
+      logger.error("{} configuration error: {}", device.getName(), error);
+    }
+    return new Result(device.getName(), written, differences, error, elapsedMillis);
+  }
+
+  /**
+   * Returns the settings that write the differing fields, or null if any field needs a full
+   * write.
+   */
+  private static Set<String> settingsOf(BaseTalonConfiguration config, List<String> differences) {
+    Set<String> settings = new LinkedHashSet<>();
+    for (String path : differences) {
+      var setting = TalonSettings.settingOf(config, path);
+      if (setting == null) {
+        return null;
+      }
+      settings.add(setting);
+    }
+    return settings;
+  }
+
+  /**
+   * Outcome of configuring one device.
+   */
+  public static final class Result {
+
+    public final String name;
+    public final boolean written;
+    public final List<String> differences;
+    public final ErrorCode error;
+    public final double elapsedMillis;
+
+    Result(String name, boolean written, List<String> differences, ErrorCode error,
+        double elapsedMillis) {
+      this.name = name;
+      this.written = written;
+      this.differences = Collections.unmodifiableList(differences);
+      this.error = error;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s in %.1f ms (%s)", name, written ? "written" : "unchanged",
+          elapsedMillis, error);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package frc.robot.talon;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+import com.ctre.phoenix.motorcontrol.can.BaseTalonConfiguration;
+import com.ctre.phoenix.motorcontrol.can.SlotConfiguration;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.ctre.phoenix.motorcontrol.can.TalonSRXConfiguration;
+import java.util.Set;
+
+/**
+ * Maps configuration fields, by the path {@link ConfigDiff} reports, to the Phoenix call that
+ * writes that one setting. Fields without a mapping, such as limit switch sources that also need
+ * their normal state, can only be written by {@code configAllSettings}.
+ */
+final class TalonSettings {
+
+  private static final Set<String> kBaseSettings = Set.of("openloopRamp", "closedloopRamp",
+      "peakOutputForward", "peakOutputReverse", "nominalOutputForward", "nominalOutputReverse",
+      "neutralDeadband", "voltageCompSaturation", "voltageMeasurementFilter",
+      "velocityMeasurementPeriod", "velocityMeasurementWindow", "forwardSoftLimitThreshold",
+      "reverseSoftLimitThreshold", "forwardSoftLimitEnable", "reverseSoftLimitEnable",
+      "motionCruiseVelocity", "motionAcceleration", "motionCurveStrength",
+      "primaryPID.selectedFeedbackCoefficient", "auxiliaryPID.selectedFeedbackCoefficient");
+
+  private static final Set<String> kSlotSettings = Set.of("kP", "kI", "kD", "kF", "integralZone",
+      "allowableClosedloopError", "maxIntegralAccumulator", "closedLoopPeakOutput",
+      "closedLoopPeriod");
+
+  private static final Set<String> kSrxSettings = Set.of("continuousCurrentLimit",
+      "peakCurrentLimit", "peakCurrentDuration");
+
+  // the current limit configurations are written as a whole
+  private static final Set<String> kFxSettings = Set.of("supplyCurrLimit", "statorCurrLimit");
+
+  private TalonSettings() {
+  }
+
+  /**
+   * Returns the setting that writes the field at {@code path} of {@code config}, or null if it can
+   * only be written with the rest of the configuration. Fields of a setting that is written as a
+   * whole all return the same setting.
+   */
+  static String settingOf(BaseTalonConfiguration config, String path) {
+    if (kBaseSettings.contains(path)) {
+      return path;
+    }
+    int dot = path.indexOf('.');
+    String head = dot < 0 ? path : path.substring(0, dot);
+    if (slotOf(head) >= 0 && kSlotSettings.contains(path.substring(dot + 1))) {
+      return path;
+    }
+    if (config instanceof TalonSRXConfiguration && kSrxSettings.contains(path)) {
+      return path;
+    }
+    if (config instanceof TalonFXConfiguration && kFxSettings.contains(head)) {
+      return head;
+    }
+    return null;
+  }
+
+  /**
+   * Writes one setting returned by {@link #settingOf(BaseTalonConfiguration, String)}.
+   */
+  static ErrorCode write(BaseTalon talon, String setting, BaseTalonConfiguration config,
+      int timeoutMs) {
+    int dot = setting.indexOf('.');
+    int slot = dot < 0 ? -1 : slotOf(setting.substring(0, dot));
+    if (slot >= 0) {
+      return writeSlot(talon, slot, setting.substring(dot + 1), slot(config, slot), timeoutMs);
+    }
+    switch (setting) {
+      case "openloopRamp":
+        return talon.configOpenloopRamp(config.openloopRamp, timeoutMs);
+      case "closedloopRamp":
+        return talon.configClosedloopRamp(config.closedloopRamp, timeoutMs);
+      case "peakOutputForward":
+        return talon.configPeakOutputForward(config.peakOutputForward, timeoutMs);
+      case "peakOutputReverse":
+        return talon.configPeakOutputReverse(config.peakOutputReverse, timeoutMs);
+      case "nominalOutputForward":
+        return talon.configNominalOutputForward(config.nominalOutputForward, timeoutMs);
+      case "nominalOutputReverse":
+        return talon.configNominalOutputReverse(config.nominalOutputReverse, timeoutMs);
+      case "neutralDeadband":
+        return talon.configNeutralDeadband(config.neutralDeadband, timeoutMs);
+      case "voltageCompSaturation":
+        return talon.configVoltageCompSaturation(config.voltageCompSaturation, timeoutMs);
+      case "voltageMeasurementFilter":
+        return talon.configVoltageMeasurementFilter(config.voltageMeasurementFilter, timeoutMs);
+      case "velocityMeasurementPeriod":
+        return talon.configVelocityMeasurementPeriod(config.velocityMeasurementPeriod, timeoutMs);
+      case "velocityMeasurementWindow":
+        return talon.configVelocityMeasurementWindow(config.velocityMeasurementWindow, timeoutMs);
+      case "forwardSoftLimitThreshold":
+        return talon.configForwardSoftLimitThreshold(config.forwardSoftLimitThreshold, timeoutMs);
+      case "reverseSoftLimitThreshold":
+        return talon.configReverseSoftLimitThreshold(config.reverseSoftLimitThreshold, timeoutMs);
+      case "forwardSoftLimitEnable":
+        return talon.configForwardSoftLimitEnable(config.forwardSoftLimitEnable, timeoutMs);
+      case "reverseSoftLimitEnable":
+        return talon.configReverseSoftLimitEnable(config.reverseSoftLimitEnable, timeoutMs);
+      case "motionCruiseVelocity":
+        return talon.configMotionCruiseVelocity(config.motionCruiseVelocity, timeoutMs);
+      case "motionAcceleration":
+        return talon.configMotionAcceleration(config.motionAcceleration, timeoutMs);
+      case "motionCurveStrength":
+        return talon.configMotionSCurveStrength(config.motionCurveStrength, timeoutMs);
+      default:
+        break;
+    }
+    if (config instanceof TalonSRXConfiguration) {
+      var srx = (TalonSRX) talon;
+      var srxConfig = (TalonSRXConfiguration) config;
+      switch (setting) {
+        case "primaryPID.selectedFeedbackCoefficient":
+          return talon.configSelectedFeedbackCoefficient(
+              srxConfig.primaryPID.selectedFeedbackCoefficient, 0, timeoutMs);
+        case "auxiliaryPID.selectedFeedbackCoefficient":
+          return talon.configSelectedFeedbackCoefficient(
+              srxConfig.auxiliaryPID.selectedFeedbackCoefficient, 1, timeoutMs);
+        case "continuousCurrentLimit":
+          return srx.configContinuousCurrentLimit(srxConfig.continuousCurrentLimit, timeoutMs);
+        case "peakCurrentLimit":
+          return srx.configPeakCurrentLimit(srxConfig.peakCurrentLimit, timeoutMs);
+        case "peakCurrentDuration":
+          return srx.configPeakCurrentDuration(srxConfig.peakCurrentDuration, timeoutMs);
+        default:
+          break;
+      }
+    }
+    if (config instanceof TalonFXConfiguration) {
+      var fx = (TalonFX) talon;
+      var fxConfig = (TalonFXConfiguration) config;
+      switch (setting) {
+        case "primaryPID.selectedFeedbackCoefficient":
+          return talon.configSelectedFeedbackCoefficient(
+              fxConfig.primaryPID.selectedFeedbackCoefficient, 0, timeoutMs);
+        case "auxiliaryPID.selectedFeedbackCoefficient":
+          return talon.configSelectedFeedbackCoefficient(
+              fxConfig.auxiliaryPID.selectedFeedbackCoefficient, 1, timeoutMs);
+        case "supplyCurrLimit":
+          return fx.configSupplyCurrentLimit(fxConfig.supplyCurrLimit, timeoutMs);
+        case "statorCurrLimit":
+          return fx.configStatorCurrentLimit(fxConfig.statorCurrLimit, timeoutMs);
+        default:
+          break;
+      }
+    }
+    throw new IllegalArgumentException("no single setting call for " + setting);
+  }
+
+  private static ErrorCode writeSlot(BaseTalon talon, int slot, String field,
+      SlotConfiguration config, int timeoutMs) {
+    switch (field) {
+      case "kP":
+        return talon.config_kP(slot, config.kP, timeoutMs);
+      case "kI":
+        return talon.config_kI(slot, config.kI, timeoutMs);
+      case "kD":
+        return talon.config_kD(slot, config.kD, timeoutMs);
+      case "kF":
+        return talon.config_kF(slot, config.kF, timeoutMs);
+      case "integralZone":
+        return talon.config_IntegralZone(slot, config.integralZone, timeoutMs);
+      case "allowableClosedloopError":
+        return talon.configAllowableClosedloopError(slot, config.allowableClosedloopError,
+            timeoutMs);
+      case "maxIntegralAccumulator":
+        return talon.configMaxIntegralAccumulator(slot, config.maxIntegralAccumulator, timeoutMs);
+      case "closedLoopPeakOutput":
+        return talon.configClosedLoopPeakOutput(slot, config.closedLoopPeakOutput, timeoutMs);
+      case "closedLoopPeriod":
+        return talon.configClosedLoopPeriod(slot, config.closedLoopPeriod, timeoutMs);
+      default:
+        throw new IllegalArgumentException("no single setting call for slot field " + field);
+    }
+  }
+
+  /**
+   * Returns the slot index of a {@code slotN} field name, or -1.
+   */
+  private static int slotOf(String name) {
+    if (name.length() == 5 && name.startsWith("slot")) {
+      int slot = name.charAt(4) - '0';
+      if (slot >= 0 && slot <= 3) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private static SlotConfiguration slot(BaseTalonConfiguration config, int slot) {
+    switch (slot) {
+      case 0:
+        return config.slot0;
+      case 1:
+        return config.slot1;
+      case 2:
+        return config.slot2;
+      default:
+        return config.slot3;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package frc.robot.telemetry;
+
+/**
+ * Layout of the drive state record published once per loop by {@link DrivePacketPublisher} and
+ * read by {@link DrivePacketDecoder}. All values are little-endian.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     2  magic 0x4450
+ *      2     1  version
+ *      3     1  flags, see FLAG_*
+ *      4     4  sequence number
+ *      8     4  sequence number of the keyframe this record is relative to
+ *     12     8  FPGA timestamp in microseconds
+ *     20        15 fields, see field indexes:
+ *                 keyframe: float64 absolute values (120 bytes)
+ *                 delta:    int16 difference from the keyframe in units of SCALE (30 bytes)
+ * </pre>
+ *
+ * <p>Deltas are taken from the last keyframe rather than the previous record, so a reader that
+ * misses records, as NetworkTables readers may, only needs the latest keyframe. Angles are in
+ * radians and their deltas wrap to [-pi, pi]. Reference fields are NaN when no trajectory is
+ * running.
+ */
+public final class DrivePacket {
+
+  public static final short MAGIC = 0x4450;
+  public static final byte VERSION = 1;
+
+  public static final int FLAG_DELTA = 0x01;
+  public static final int FLAG_REFERENCE = 0x02;
+
+  public static final int X = 0;
+  public static final int Y = 1;
+  public static final int HEADING = 2;
+  public static final int MODULE_COUNT = 4;
+  public static final int REFERENCE_X = 11;
+  public static final int REFERENCE_Y = 12;
+  public static final int REFERENCE_HEADING = 13;
+  public static final int REFERENCE_VELOCITY = 14;
+  public static final int FIELD_COUNT = 15;
+
+  public static final int HEADER_BYTES = 20;
+  public static final int KEYFRAME_BYTES = HEADER_BYTES + FIELD_COUNT * Double.BYTES;
+  public static final int DELTA_BYTES = HEADER_BYTES + FIELD_COUNT * Short.BYTES;
+
+  private static final double kMeters = 1e-3;
+  private static final double kRadians = 1e-4;
+
+  /**
+   * Resolution of each field in a delta record.
+   */
+  static final double[] SCALE = {
+      kMeters, kMeters, kRadians,
+      kMeters, kRadians, kMeters, kRadians, kMeters, kRadians, kMeters, kRadians,
+      kMeters, kMeters, kRadians, kMeters
+  };
+
+  private DrivePacket() {
+  }
+
+  public static int moduleSpeed(int module) {
+    return 3 + 2 * module;
+  }
+
+  public static int moduleAngle(int module) {
+    return 4 + 2 * module;
+  }
+
+  static boolean isAngle(int field) {
+    return SCALE[field] == kRadians;
+  }
+
+  static double wrap(double radians) {
+    return Math.IEEEremainder(radians, 2.0 * Math.PI);
+  }
+}
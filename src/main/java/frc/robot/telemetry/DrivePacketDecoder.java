@@ -0,0 +1,103 @@
+package frc.robot.telemetry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Dashboard-side reader for {@link DrivePacket} records. It only depends on the JDK and its
+ * package's layout class, so it can be copied into dashboard code.
+ *
+ * <p>Decode the keyframe entry before the packet entry, so a delta whose keyframe NetworkTables
+ * didn't deliver on the packet entry can still be read.
+ *
+ * <pre>
+ * var decoder = new DrivePacketDecoder();
+ * decoder.decode(keyframeEntry.getRaw(new byte[0]));
+ * if (decoder.decode(entry.getRaw(new byte[0]))) {
+ *   plot(decoder.getTimestampMicros(), decoder.get(DrivePacket.X), decoder.get(DrivePacket.Y));
+ * }
+ * </pre>
+ */
+public final class DrivePacketDecoder {
+
+  private final double[] keyframe = new double[DrivePacket.FIELD_COUNT];
+  private final double[] values = new double[DrivePacket.FIELD_COUNT];
+  private long keySequence = -1;
+  private long sequence = -1;
+  private long timestampMicros;
+  private int flags;
+
+  /**
+   * Decodes a record, replacing the current values.
+   *
+   * @return false if the record is malformed, a duplicate of the last one or of the current
+   *     keyframe, or a delta against a keyframe this decoder hasn't seen, in which case the
+   *     current values don't change
+   */
+  public boolean decode(byte[] packet) {
+    if (packet == null || packet.length < DrivePacket.HEADER_BYTES) {
+      return false;
+    }
+    var buffer = ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.getShort() != DrivePacket.MAGIC || buffer.get() != DrivePacket.VERSION) {
+      return false;
+    }
+    int flags = buffer.get() & 0xFF;
+    long sequence = buffer.getInt() & 0xFFFFFFFFL;
+    long keySequence = buffer.getInt() & 0xFFFFFFFFL;
+    long timestamp = buffer.getLong();
+    if (sequence == this.sequence) {
+      return false;
+    }
+
+    if ((flags & DrivePacket.FLAG_DELTA) == 0) {
+      if (packet.length < DrivePacket.KEYFRAME_BYTES || sequence == this.keySequence) {
+        return false;
+      }
+      for (int i = 0; i < DrivePacket.FIELD_COUNT; i++) {
+        keyframe[i] = buffer.getDouble();
+        values[i] = keyframe[i];
+      }
+      this.keySequence = sequence;
+    } else {
+      if (packet.length < DrivePacket.DELTA_BYTES || keySequence != this.keySequence) {
+        return false;
+      }
+      for (int i = 0; i < DrivePacket.FIELD_COUNT; i++) {
+        double value = keyframe[i] + buffer.getShort() * DrivePacket.SCALE[i];
+        values[i] = DrivePacket.isAngle(i) ? DrivePacket.wrap(value) : value;
+      }
+    }
+    this.sequence = sequence;
+    this.flags = flags;
+    timestampMicros = timestamp;
+    return true;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public long getTimestampMicros() {
+    return timestampMicros;
+  }
+
+  /**
+   * Returns a field by its {@link DrivePacket} index.
+   */
+  public double get(int field) {
+    return values[field];
+  }
+
+  public double getModuleSpeedMetersPerSecond(int module) {
+    return values[DrivePacket.moduleSpeed(module)];
+  }
+
+  public double getModuleAngleRadians(int module) {
+    return values[DrivePacket.moduleAngle(module)];
+  }
+
+  public boolean hasReference() {
+    return (flags & DrivePacket.FLAG_REFERENCE) != 0;
+  }
+}
@@ -0,0 +1,177 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.commands.DriveTrajectoryCommand;
+import frc.robot.subsystems.DriveSubsystem;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Publishes the drive state and trajectory reference as one {@link DrivePacket} record per loop
+ * to a single NetworkTables raw entry, instead of a value per field.
+ *
+ * <p>With delta encoding on, a keyframe is sent every {@link #kKeyframeInterval} records, and
+ * whenever a field moves too far from the keyframe to fit in a delta or the reference starts or
+ * stops. Records in between are 50 bytes instead of 140.
+ *
+ * <p>NetworkTables only sends the latest value of an entry at each update, so a keyframe can be
+ * overwritten by the next delta before it goes out. Keyframes are therefore also published to
+ * their own {@link #kKeyframeEntryName} entry, which a reader decodes before the packet entry.
+ */
+public final class DrivePacketPublisher {
+
+  public static final String kEntryName = "/Drive/Packet";
+  public static final String kKeyframeEntryName = "/Drive/Keyframe";
+  public static final int kKeyframeInterval = 50;
+
+  private final DriveSubsystem driveSubsystem;
+  private final DriveTrajectoryCommand trajectoryCommand;
+  private final NetworkTableEntry entry;
+  private final NetworkTableEntry keyframeEntry;
+  private final Encoder encoder = new Encoder();
+  private final double[] values = new double[DrivePacket.FIELD_COUNT];
+
+  public DrivePacketPublisher(DriveSubsystem driveSubsystem,
+      DriveTrajectoryCommand trajectoryCommand) {
+    this(driveSubsystem, trajectoryCommand,
+        NetworkTableInstance.getDefault().getEntry(kEntryName),
+        NetworkTableInstance.getDefault().getEntry(kKeyframeEntryName));
+  }
+
+  public DrivePacketPublisher(DriveSubsystem driveSubsystem,
+      DriveTrajectoryCommand trajectoryCommand, NetworkTableEntry entry,
+      NetworkTableEntry keyframeEntry) {
+    this.driveSubsystem = driveSubsystem;
+    this.trajectoryCommand = trajectoryCommand;
+    this.entry = entry;
+    this.keyframeEntry = keyframeEntry;
+  }
+
+  public void setDeltaEncoding(boolean deltaEncoding) {
+    encoder.setDeltaEncoding(deltaEncoding);
+  }
+
+  /**
+   * Encodes the current drive state and publishes it. Call once per loop after the scheduler runs.
+   */
+  public void publish() {
+    var state = driveSubsystem.getDriveState();
+    var pose = state.getPoseMeters();
+    values[DrivePacket.X] = pose.getX();
+    values[DrivePacket.Y] = pose.getY();
+    values[DrivePacket.HEADING] = state.getHeading().getRadians();
+    for (int i = 0; i < DrivePacket.MODULE_COUNT; i++) {
+      values[DrivePacket.moduleSpeed(i)] = state.getModuleSpeedMetersPerSecond(i);
+      values[DrivePacket.moduleAngle(i)] = state.getModuleAngleRadians(i);
+    }
+    boolean reference = trajectoryCommand.isRunning();
+    if (reference) {
+      values[DrivePacket.REFERENCE_X] = trajectoryCommand.getReferenceX();
+      values[DrivePacket.REFERENCE_Y] = trajectoryCommand.getReferenceY();
+      values[DrivePacket.REFERENCE_HEADING] = trajectoryCommand.getReferenceHeading();
+      values[DrivePacket.REFERENCE_VELOCITY] = trajectoryCommand.getReferenceVelocity();
+    } else {
+      values[DrivePacket.REFERENCE_X] = Double.NaN;
+      values[DrivePacket.REFERENCE_Y] = Double.NaN;
+      values[DrivePacket.REFERENCE_HEADING] = Double.NaN;
+      values[DrivePacket.REFERENCE_VELOCITY] = Double.NaN;
+    }
+
+    long timestamp = Math.round(state.getTimestampSeconds() * 1e6);
+    byte[] packet = encoder.encode(values, reference, timestamp);
+    entry.setRaw(packet);
+    if (encoder.isKeyframe()) {
+      keyframeEntry.setRaw(packet);
+    }
+  }
+
+  /**
+   * Encodes records, keeping the keyframe state between calls. The returned array is reused.
+   */
+  static final class Encoder {
+
+    private final double[] keyframe = new double[DrivePacket.FIELD_COUNT];
+    private final short[] deltas = new short[DrivePacket.FIELD_COUNT];
+    private final byte[] keyframeBytes = new byte[DrivePacket.KEYFRAME_BYTES];
+    private final byte[] deltaBytes = new byte[DrivePacket.DELTA_BYTES];
+    private final ByteBuffer keyframeBuffer =
+        ByteBuffer.wrap(keyframeBytes).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer deltaBuffer =
+        ByteBuffer.wrap(deltaBytes).order(ByteOrder.LITTLE_ENDIAN);
+    private boolean deltaEncoding = true;
+    private boolean isKeyframe;
+    private int sequence;
+    private int keySequence;
+    private int sinceKeyframe = kKeyframeInterval;
+    private int keyFlags;
+
+    void setDeltaEncoding(boolean deltaEncoding) {
+      this.deltaEncoding = deltaEncoding;
+      sinceKeyframe = kKeyframeInterval;
+    }
+
+    /**
+     * Returns true if the last encoded record was a keyframe.
+     */
+    boolean isKeyframe() {
+      return isKeyframe;
+    }
+
+    byte[] encode(double[] values, boolean reference, long timestamp) {
+      int flags = reference ? DrivePacket.FLAG_REFERENCE : 0;
+      byte[] packet;
+      isKeyframe = !(deltaEncoding && sinceKeyframe < kKeyframeInterval && flags == keyFlags
+          && computeDeltas(values));
+      if (!isKeyframe) {
+        writeHeader(deltaBuffer, flags | DrivePacket.FLAG_DELTA, timestamp);
+        for (short delta : deltas) {
+          deltaBuffer.putShort(delta);
+        }
+        packet = deltaBytes;
+        sinceKeyframe++;
+      } else {
+        keySequence = sequence;
+        keyFlags = flags;
+        writeHeader(keyframeBuffer, flags, timestamp);
+        for (int i = 0; i < DrivePacket.FIELD_COUNT; i++) {
+          keyframe[i] = values[i];
+          keyframeBuffer.putDouble(values[i]);
+        }
+        packet = keyframeBytes;
+        sinceKeyframe = 0;
+      }
+      sequence++;
+      return packet;
+    }
+
+    private boolean computeDeltas(double[] values) {
+      for (int i = 0; i < DrivePacket.FIELD_COUNT; i++) {
+        double delta = values[i] - keyframe[i];
+        if (Double.isNaN(delta)) {
+          deltas[i] = 0;
+          continue;
+        }
+        if (DrivePacket.isAngle(i)) {
+          delta = DrivePacket.wrap(delta);
+        }
+        long quantized = Math.round(delta / DrivePacket.SCALE[i]);
+        if (quantized < Short.MIN_VALUE || quantized > Short.MAX_VALUE) {
+          return false;
+        }
+        deltas[i] = (short) quantized;
+      }
+      return true;
+    }
+
+    private void writeHeader(ByteBuffer buffer, int flags, long timestamp) {
+      buffer.clear();
+      buffer.putShort(DrivePacket.MAGIC);
+      buffer.put(DrivePacket.VERSION);
+      buffer.put((byte) flags);
+      buffer.putInt(sequence);
+      buffer.putInt(keySequence);
+      buffer.putLong(timestamp);
+    }
+  }
+}
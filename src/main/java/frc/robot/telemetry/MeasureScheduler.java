@@ -0,0 +1,362 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.strykeforce.telemetry.measurable.Measurable;
+import org.strykeforce.telemetry.measurable.Measure;
+
+/**
+ * Samples telemetry measures at a per-measure rate and priority instead of polling every supplier
+ * whenever the telemetry service asks. Wrap each {@link Measurable} with {@link
+ * #schedule(Measurable, Sampling, Map)} and register the result with the telemetry service; its
+ * measures return the latest sample and never call the original supplier.
+ *
+ * <p>Sampling runs on its own {@link Notifier}. Each tick samples the due measures in priority
+ * order until the tick's time budget is spent. Due measures left over are counted as dropped and
+ * go first in their priority on the next tick. While {@link #setShedding(boolean) shedding}, only
+ * {@link Priority#HIGH} measures are sampled and the rest are counted as dropped. A supplier that
+ * throws is counted as dropped too, and errors are logged at most once per report period.
+ *
+ * <p>Requested rates, achieved rates and dropped samples per priority are published as this
+ * object's own measures and per-measure shortfalls are logged by {@link #logRates()}.
+ */
+public final class MeasureScheduler implements Measurable {
+
+  static final double kTickPeriodSeconds = 0.02;
+  static final double kTickBudgetSeconds = 0.002;
+  static final double kReportPeriodSeconds = 1.0;
+
+  private static final Logger logger = LoggerFactory.getLogger(MeasureScheduler.class);
+
+  public enum Priority {
+    HIGH, NORMAL, LOW
+  }
+
+  /**
+   * The rate and priority a measure is sampled at.
+   */
+  public static final class Sampling {
+
+    /**
+     * Every tick, for odometry and trajectory tracking.
+     */
+    public static final Sampling LOOP = new Sampling(1.0 / kTickPeriodSeconds, Priority.HIGH);
+    public static final Sampling NORMAL = new Sampling(10.0, Priority.NORMAL);
+    /**
+     * Once a second, for temperatures, firmware versions and similar.
+     */
+    public static final Sampling DIAGNOSTIC = new Sampling(1.0, Priority.LOW);
+
+    final double hz;
+    final Priority priority;
+
+    public Sampling(double hz, Priority priority) {
+      if (!(hz > 0.0)) {
+        throw new IllegalArgumentException("rate must be positive: " + hz);
+      }
+      this.hz = hz;
+      this.priority = priority;
+    }
+  }
+
+  private final Map<Priority, List<Entry>> entries = new EnumMap<>(Priority.class);
+  private final Map<Priority, Stats> stats = new EnumMap<>(Priority.class);
+  private final LongSupplier clock;
+  private final long tickMicros = (long) (kTickPeriodSeconds * 1e6);
+  private final long budgetMicros = (long) (kTickBudgetSeconds * 1e6);
+  private volatile AtomicLongArray values;
+  private volatile double tickMaxMillis;
+  private volatile boolean shedding;
+  private int slotCount;
+  private Entry[][] ordered;
+  private int[] cursors;
+  private Notifier notifier;
+  private long reportStart;
+  private long tickMax;
+  private int errorCount;
+  private Entry errorEntry;
+  private RuntimeException error;
+
+  public MeasureScheduler() {
+    this(RobotController::getFPGATime);
+  }
+
+  /**
+   * Creates a scheduler that reads time from {@code clockMicros}, for tests.
+   */
+  MeasureScheduler(LongSupplier clockMicros) {
+    clock = clockMicros;
+    for (Priority priority : Priority.values()) {
+      entries.put(priority, new ArrayList<>());
+      stats.put(priority, new Stats());
+    }
+  }
+
+  public Measurable schedule(Measurable source, Sampling sampling) {
+    return schedule(source, sampling, Map.of());
+  }
+
+  /**
+   * Wraps a measurable so its measures are sampled by this scheduler. Must be called before {@link
+   * #start()}.
+   *
+   * @param source    the measurable to sample
+   * @param sampling  the default for its measures
+   * @param overrides sampling for individual measures, by measure name
+   * @return the measurable to register with the telemetry service
+   */
+  public Measurable schedule(Measurable source, Sampling sampling,
+      Map<String, Sampling> overrides) {
+    if (ordered != null) {
+      throw new IllegalStateException("scheduler already started");
+    }
+    Set<String> unused = new HashSet<>(overrides.keySet());
+    Set<Measure> measures = new HashSet<>();
+    for (Measure measure : source.getMeasures()) {
+      unused.remove(measure.getName());
+      var entry = new Entry(source.getDescription() + "/" + measure.getName(), measure,
+          overrides.getOrDefault(measure.getName(), sampling), slotCount++);
+      entries.get(entry.priority).add(entry);
+      measures.add(new Measure(measure.getName(),
+          () -> Double.longBitsToDouble(values.get(entry.slot))));
+    }
+    if (!unused.isEmpty()) {
+      logger.warn("{} has no measures named {}", source.getDescription(), unused);
+    }
+    return new ScheduledMeasurable(source, Set.copyOf(measures));
+  }
+
+  /**
+   * Starts sampling. No more measurables can be scheduled after this.
+   */
+  public void start() {
+    prepare();
+    notifier = new Notifier(this::tick);
+    notifier.setName("Telemetry Sampler");
+    notifier.startPeriodic(kTickPeriodSeconds);
+    logger.info("sampling {} measures", values.length());
+  }
+
+  /**
+   * Builds the sampling order so {@link #tick()} can run. Called by {@link #start()}.
+   */
+  void prepare() {
+    values = new AtomicLongArray(slotCount);
+    ordered = new Entry[Priority.values().length][];
+    cursors = new int[ordered.length];
+    for (Priority priority : Priority.values()) {
+      List<Entry> list = entries.get(priority);
+      ordered[priority.ordinal()] = list.toArray(new Entry[0]);
+      stats.get(priority).requestedHz = list.stream().mapToDouble(e -> e.hz).sum();
+    }
+    reportStart = clock.getAsLong();
+  }
+
+  public void stop() {
+    if (notifier != null) {
+      notifier.stop();
+    }
+  }
+
+  /**
+   * Sheds or restores sampling below {@link Priority#HIGH}, for example while the robot loop is
+   * overrunning.
+   */
+  public void setShedding(boolean shedding) {
+    this.shedding = shedding;
+  }
+
+  /**
+   * Logs each priority's achieved rate and every measure sampled at less than 90% of its requested
+   * rate in the last report period.
+   */
+  public void logRates() {
+    for (Priority priority : Priority.values()) {
+      var s = stats.get(priority);
+      logger.info("{}: {} of {} samples/s, {} dropped/s", priority,
+          String.format("%.1f", s.achievedHz), String.format("%.1f", s.requestedHz),
+          String.format("%.1f", s.droppedHz));
+      for (Entry entry : entries.get(priority)) {
+        if (entry.achievedHz < 0.9 * entry.hz) {
+          logger.info("  {}: {} of {} Hz", entry.name, String.format("%.1f", entry.achievedHz),
+              entry.hz);
+        }
+      }
+    }
+  }
+
+  void tick() {
+    long start = clock.getAsLong();
+    // sample anything due within half a tick so notifier jitter doesn't halve a LOOP rate
+    long horizon = start + tickMicros / 2;
+    boolean shed = shedding;
+    for (int p = 0; p < ordered.length; p++) {
+      Entry[] list = ordered[p];
+      int next = -1;
+      for (int k = 0; k < list.length; k++) {
+        int i = (cursors[p] + k) % list.length;
+        Entry entry = list[i];
+        if (entry.nextDue > horizon) {
+          continue;
+        }
+        if ((shed && p > Priority.HIGH.ordinal())
+            || clock.getAsLong() - start > budgetMicros) {
+          entry.dropped++;
+          if (next < 0) {
+            next = i;
+          }
+          continue;
+        }
+        entry.nextDue += entry.periodMicros;
+        try {
+          values.set(entry.slot, Double.doubleToRawLongBits(entry.supplier.getAsDouble()));
+          entry.samples++;
+        } catch (RuntimeException e) {
+          // keep the sampler alive, one bad measure shouldn't stop all telemetry
+          entry.dropped++;
+          errorCount++;
+          errorEntry = entry;
+          error = e;
+        }
+        if (entry.nextDue <= start) {
+          entry.nextDue = start + entry.periodMicros;
+        }
+      }
+      if (next >= 0) {
+        cursors[p] = next;
+      }
+    }
+    long end = clock.getAsLong();
+    tickMax = Math.max(tickMax, end - start);
+    if (end - reportStart >= kReportPeriodSeconds * 1e6) {
+      report((end - reportStart) / 1e6);
+      reportStart = end;
+    }
+  }
+
+  private void report(double seconds) {
+    for (Priority priority : Priority.values()) {
+      double achieved = 0.0;
+      long dropped = 0;
+      for (Entry entry : ordered[priority.ordinal()]) {
+        entry.achievedHz = entry.samples / seconds;
+        achieved += entry.achievedHz;
+        dropped += entry.dropped;
+        entry.samples = 0;
+        entry.dropped = 0;
+      }
+      var s = stats.get(priority);
+      s.achievedHz = achieved;
+      s.droppedHz = dropped / seconds;
+      s.totalDropped += dropped;
+    }
+    tickMaxMillis = tickMax / 1000.0;
+    tickMax = 0;
+    if (error != null) {
+      logger.warn("{} sampling errors in the last {} sec, last from {}", errorCount,
+          String.format("%.1f", seconds), errorEntry.name, error);
+      errorCount = 0;
+      errorEntry = null;
+      error = null;
+    }
+  }
+
+  // Measurable Support
+
+  @NotNull
+  @Override
+  public String getDescription() {
+    return "Measure Scheduler";
+  }
+
+  @Override
+  public int getDeviceId() {
+    return 0;
+  }
+
+  @NotNull
+  @Override
+  public Set<Measure> getMeasures() {
+    Set<Measure> measures = new HashSet<>();
+    stats.forEach((priority, s) -> {
+      String name = priority.name().charAt(0) + priority.name().substring(1).toLowerCase();
+      measures.add(new Measure(name + " Requested (samples/s)", () -> s.requestedHz));
+      measures.add(new Measure(name + " Achieved (samples/s)", () -> s.achievedHz));
+      measures.add(new Measure(name + " Dropped (samples/s)", () -> s.droppedHz));
+      measures.add(new Measure(name + " Dropped Samples", () -> s.totalDropped));
+    });
+    measures.add(new Measure("Tick Max (ms)", () -> tickMaxMillis));
+    return measures;
+  }
+
+  private static final class Entry {
+
+    final String name;
+    final DoubleSupplier supplier;
+    final double hz;
+    final long periodMicros;
+    final Priority priority;
+    final int slot;
+    long nextDue;
+    int samples;
+    long dropped;
+    volatile double achievedHz;
+
+    Entry(String name, Measure measure, Sampling sampling, int slot) {
+      this.name = name;
+      supplier = measure.getMeasurement();
+      hz = sampling.hz;
+      periodMicros = (long) (1e6 / sampling.hz);
+      priority = sampling.priority;
+      this.slot = slot;
+    }
+  }
+
+  private static final class Stats {
+
+    volatile double requestedHz;
+    volatile double achievedHz;
+    volatile double droppedHz;
+    volatile long totalDropped;
+  }
+
+  private static final class ScheduledMeasurable implements Measurable {
+
+    private final Measurable source;
+    private final Set<Measure> measures;
+
+    ScheduledMeasurable(Measurable source, Set<Measure> measures) {
+      this.source = source;
+      this.measures = measures;
+    }
+
+    @NotNull
+    @Override
+    public String getDescription() {
+      return source.getDescription();
+    }
+
+    @Override
+    public int getDeviceId() {
+      return source.getDeviceId();
+    }
+
+    @NotNull
+    @Override
+    public Set<Measure> getMeasures() {
+      return measures;
+    }
+  }
+}
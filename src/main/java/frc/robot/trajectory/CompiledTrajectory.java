@@ -0,0 +1,150 @@
+package frc.robot.trajectory;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+
+/**
+ * A trajectory resampled at a fixed time step into primitive columns. Built once, it is sampled by
+ * direct index so the robot loop does no searching, interpolation or allocation.
+ */
+public final class CompiledTrajectory {
+
+  public static final double kDefaultSampleSeconds = 0.005;
+
+  /**
+   * A single stationary sample at the origin, for use before a trajectory is available.
+   */
+  public static final CompiledTrajectory EMPTY = new CompiledTrajectory(kDefaultSampleSeconds,
+      0.0, new double[1], new double[1], new double[1], new double[1], new double[1],
+      new double[1]);
+
+  private final double dt;
+  private final double totalTimeSeconds;
+  private final double[] x;
+  private final double[] y;
+  private final double[] heading;
+  private final double[] velocity;
+  private final double[] acceleration;
+  private final double[] curvature;
+
+  /**
+   * Compiles a trajectory using the default sample period.
+   *
+   * @param trajectory the trajectory to compile
+   */
+  public CompiledTrajectory(Trajectory trajectory) {
+    this(trajectory, kDefaultSampleSeconds);
+  }
+
+  /**
+   * Compiles a trajectory by sampling it every {@code sampleSeconds}.
+   *
+   * @param trajectory    the trajectory to compile
+   * @param sampleSeconds the sample period in seconds
+   */
+  public CompiledTrajectory(Trajectory trajectory, double sampleSeconds) {
+    if (sampleSeconds <= 0.0) {
+      throw new IllegalArgumentException("sample period must be positive: " + sampleSeconds);
+    }
+    dt = sampleSeconds;
+    totalTimeSeconds = trajectory.getTotalTimeSeconds();
+    int length = (int) Math.ceil(totalTimeSeconds / dt) + 1;
+    x = new double[length];
+    y = new double[length];
+    heading = new double[length];
+    velocity = new double[length];
+    acceleration = new double[length];
+    curvature = new double[length];
+
+    for (int i = 0; i < length; i++) {
+      var state = trajectory.sample(Math.min(i * dt, totalTimeSeconds));
+      x[i] = state.poseMeters.getX();
+      y[i] = state.poseMeters.getY();
+      heading[i] = state.poseMeters.getRotation().getRadians();
+      velocity[i] = state.velocityMetersPerSecond;
+      acceleration[i] = state.accelerationMetersPerSecondSq;
+      curvature[i] = state.curvatureRadPerMeter;
+    }
+  }
+
+  /**
+   * Creates a compiled trajectory from existing columns, all of which must be the same length.
+   */
+  CompiledTrajectory(double sampleSeconds, double totalTimeSeconds, double[] x, double[] y,
+      double[] heading, double[] velocity, double[] acceleration, double[] curvature) {
+    this.dt = sampleSeconds;
+    this.totalTimeSeconds = totalTimeSeconds;
+    this.x = x;
+    this.y = y;
+    this.heading = heading;
+    this.velocity = velocity;
+    this.acceleration = acceleration;
+    this.curvature = curvature;
+  }
+
+  /**
+   * Returns the index of the sample nearest to {@code timeSeconds}, clamped to the trajectory.
+   */
+  public int indexOf(double timeSeconds) {
+    if (timeSeconds <= 0.0) {
+      return 0;
+    }
+    int index = (int) (timeSeconds / dt + 0.5);
+    return Math.min(index, x.length - 1);
+  }
+
+  public int length() {
+    return x.length;
+  }
+
+  public double getSampleSeconds() {
+    return dt;
+  }
+
+  public Pose2d getInitialPose() {
+    return new Pose2d(x[0], y[0], new Rotation2d(heading[0]));
+  }
+
+  /**
+   * Returns the approximate heap used by the sample columns.
+   */
+  public long getSizeBytes() {
+    return 6L * Double.BYTES * x.length;
+  }
+
+  public double getTotalTimeSeconds() {
+    return totalTimeSeconds;
+  }
+
+  public double getTimeSeconds(int index) {
+    return Math.min(index * dt, totalTimeSeconds);
+  }
+
+  public double getX(int index) {
+    return x[index];
+  }
+
+  public double getY(int index) {
+    return y[index];
+  }
+
+  /**
+   * Returns the reference heading in radians.
+   */
+  public double getHeading(int index) {
+    return heading[index];
+  }
+
+  public double getVelocity(int index) {
+    return velocity[index];
+  }
+
+  public double getAcceleration(int index) {
+    return acceleration[index];
+  }
+
+  public double getCurvature(int index) {
+    return curvature[index];
+  }
+}
@@ -0,0 +1,89 @@
+package frc.robot.trajectory;
+
+import edu.wpi.first.wpilibj.controller.PIDController;
+import edu.wpi.first.wpilibj.controller.ProfiledPIDController;
+
+/**
+ * Primitive version of WPILib's {@code HolonomicDriveController} that follows a {@link
+ * CompiledTrajectory} sample. It applies the same control law but stores its output in fields
+ * instead of returning a new {@code ChassisSpeeds} each loop.
+ */
+public final class HolonomicController {
+
+  private final PIDController xController;
+  private final PIDController yController;
+  private final ProfiledPIDController thetaController;
+  private boolean enabled = true;
+
+  private double vxMetersPerSecond;
+  private double vyMetersPerSecond;
+  private double omegaRadiansPerSecond;
+
+  public HolonomicController(PIDController xController, PIDController yController,
+      ProfiledPIDController thetaController) {
+    this.xController = xController;
+    this.yController = yController;
+    this.thetaController = thetaController;
+    thetaController.enableContinuousInput(-Math.PI, Math.PI);
+  }
+
+  /**
+   * Clears controller state before following a new trajectory.
+   */
+  public void reset() {
+    xController.reset();
+    yController.reset();
+    thetaController.reset(0.0);
+    vxMetersPerSecond = 0.0;
+    vyMetersPerSecond = 0.0;
+    omegaRadiansPerSecond = 0.0;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Calculates robot-relative chassis speeds to follow the trajectory sample at {@code index}.
+   * Results are read back with {@link #getVx()}, {@link #getVy()} and {@link #getOmega()}.
+   *
+   * @param x               current x position in meters
+   * @param y               current y position in meters
+   * @param headingRadians  current heading in radians
+   * @param trajectory      the trajectory being followed
+   * @param index           the trajectory sample index
+   * @param angleRefRadians desired robot heading in radians
+   */
+  public void calculate(double x, double y, double headingRadians, CompiledTrajectory trajectory,
+      int index, double angleRefRadians) {
+    double refHeading = trajectory.getHeading(index);
+    double velocity = trajectory.getVelocity(index);
+    double vx = velocity * Math.cos(refHeading);
+    double vy = velocity * Math.sin(refHeading);
+    double omega = thetaController.calculate(headingRadians, angleRefRadians);
+
+    if (enabled) {
+      vx += xController.calculate(x, trajectory.getX(index));
+      vy += yController.calculate(y, trajectory.getY(index));
+    }
+
+    // field-relative to robot-relative, as ChassisSpeeds.fromFieldRelativeSpeeds
+    double cos = Math.cos(headingRadians);
+    double sin = Math.sin(headingRadians);
+    vxMetersPerSecond = vx * cos + vy * sin;
+    vyMetersPerSecond = -vx * sin + vy * cos;
+    omegaRadiansPerSecond = omega;
+  }
+
+  public double getVx() {
+    return vxMetersPerSecond;
+  }
+
+  public double getVy() {
+    return vyMetersPerSecond;
+  }
+
+  public double getOmega() {
+    return omegaRadiansPerSecond;
+  }
+}
@@ -0,0 +1,135 @@
+package frc.robot.trajectory;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.spline.CubicHermiteSpline;
+import edu.wpi.first.wpilibj.spline.PoseWithCurvature;
+import edu.wpi.first.wpilibj.spline.Spline;
+import edu.wpi.first.wpilibj.spline.SplineHelper;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryParameterizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regenerates the remainder of a path from the robot's current pose. The path is the same clamped
+ * cubic spline {@link TrajectoryGenerator} builds from the start pose, interior waypoints and end
+ * pose, so it matches what {@link TrajectoryRegistry} generates for the same inputs. Its segments
+ * are sampled once up front; a replan samples one new cubic segment from the current pose to the
+ * next waypoint, arriving with the original path's heading there, then reuses the original
+ * segments after it and time-parameterizes the joined points.
+ *
+ * <p>Not thread safe; use from the command that owns it.
+ */
+public final class Replanner {
+
+  private final List<Pose2d> waypoints = new ArrayList<>();
+  private final List<List<PoseWithCurvature>> segments = new ArrayList<>();
+  private final TrajectoryConfig config;
+  private final int pointCapacity;
+  private int next = 1;
+
+  public Replanner(Pose2d start, List<Translation2d> interiorWaypoints, Pose2d end,
+      TrajectoryConfig config) {
+    this.config = config;
+    var interior = interiorWaypoints.toArray(new Translation2d[0]);
+    var controlVectors = SplineHelper.getCubicControlVectorsFromWaypoints(start, interior, end);
+    var splines = SplineHelper.getCubicSplinesFromControlVectors(controlVectors[0], interior,
+        controlVectors[1]);
+
+    // segment i runs from waypoint i to waypoint i + 1
+    int total = 0;
+    for (var spline : splines) {
+      var segment = TrajectoryGenerator.splinePointsFromSplines(new Spline[]{spline});
+      segments.add(segment);
+      total += segment.size();
+    }
+    pointCapacity = total + 64;
+
+    // interior waypoint headings are the spline's direction of travel through them
+    waypoints.add(start);
+    for (int i = 0; i < interior.length; i++) {
+      waypoints.add(new Pose2d(interior[i],
+          segments.get(i + 1).get(0).poseMeters.getRotation()));
+    }
+    waypoints.add(end);
+  }
+
+  /**
+   * Starts over at the first waypoint.
+   */
+  public void reset() {
+    next = 1;
+  }
+
+  /**
+   * Advances past any waypoints the robot has reached, judged by whether it is past the line
+   * through the waypoint perpendicular to the path.
+   */
+  public void update(Translation2d position) {
+    while (next < waypoints.size() - 1) {
+      var waypoint = waypoints.get(next);
+      var offset = position.minus(waypoint.getTranslation());
+      var heading = waypoint.getRotation();
+      if (offset.getX() * heading.getCos() + offset.getY() * heading.getSin() <= 0.0) {
+        break;
+      }
+      next++;
+    }
+  }
+
+  /**
+   * Returns the index of the next waypoint, where 0 is the start pose.
+   */
+  public int getNextWaypoint() {
+    return next;
+  }
+
+  /**
+   * Generates a trajectory from {@code position} through the remaining waypoints.
+   *
+   * @param position         current position
+   * @param tangent          current direction of travel, usually the reference heading
+   * @param velocity         current speed along the path
+   * @param minSegmentMeters skip a next waypoint closer than this
+   * @return the new trajectory starting at time zero
+   * @throws RuntimeException if the constraints can't be met
+   */
+  public Trajectory replan(Translation2d position, Rotation2d tangent, double velocity,
+      double minSegmentMeters) {
+    int target = next;
+    while (target < waypoints.size() - 1
+        && position.getDistance(waypoints.get(target).getTranslation()) < minSegmentMeters) {
+      target++;
+    }
+
+    List<PoseWithCurvature> points = new ArrayList<>(pointCapacity);
+    points.addAll(TrajectoryGenerator.splinePointsFromSplines(
+        new Spline[]{joiningSpline(new Pose2d(position, tangent), waypoints.get(target))}));
+    for (int i = target; i < segments.size(); i++) {
+      var segment = segments.get(i);
+      // each segment starts with the point that ended the one before
+      points.addAll(segment.subList(1, segment.size()));
+    }
+
+    return TrajectoryParameterizer.timeParameterizeTrajectory(points, config.getConstraints(),
+        Math.min(Math.abs(velocity), config.getMaxVelocity()), config.getEndVelocity(),
+        config.getMaxVelocity(), config.getMaxAcceleration(), config.isReversed());
+  }
+
+  /**
+   * Returns a cubic from {@code start} to {@code end} with the tangent scaling {@link
+   * SplineHelper} uses for poses.
+   */
+  private static CubicHermiteSpline joiningSpline(Pose2d start, Pose2d end) {
+    double scalar = 1.2 * start.getTranslation().getDistance(end.getTranslation());
+    return new CubicHermiteSpline(
+        new double[]{start.getX(), scalar * start.getRotation().getCos()},
+        new double[]{end.getX(), scalar * end.getRotation().getCos()},
+        new double[]{start.getY(), scalar * start.getRotation().getSin()},
+        new double[]{end.getY(), scalar * end.getRotation().getSin()});
+  }
+}
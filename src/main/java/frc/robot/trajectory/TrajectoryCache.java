@@ -0,0 +1,254 @@
+package frc.robot.trajectory;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import edu.wpi.first.wpilibj.trajectory.constraint.TrajectoryConstraint;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores generated trajectories in a compact binary file per trajectory so they don't need to be
+ * regenerated on every boot. Each file records a key computed from the generator inputs; when the
+ * inputs change the key no longer matches and the trajectory is regenerated and rewritten.
+ * Constraints are keyed by their primitive parameters; a constraint holding anything else (such as
+ * a kinematics object) can't be keyed across boots, so those trajectories are never cached.
+ *
+ * <p>File layout (little-endian): magic, version, key, state count, then for each state the
+ * time, velocity, acceleration, x, y, heading (radians) and curvature as doubles.
+ */
+public final class TrajectoryCache {
+
+  static final int kMagic = 0x5452414A; // "TRAJ"
+  static final int kVersion = 1;
+  static final int kHeaderBytes = 4 + 4 + 8 + 4;
+  static final int kStateBytes = 7 * 8;
+  static final String kExtension = ".traj";
+
+  private static final Logger logger = LoggerFactory.getLogger(TrajectoryCache.class);
+
+  private final Path directory;
+
+  /**
+   * Creates a cache in the {@code trajectories} folder of the deploy directory.
+   */
+  public TrajectoryCache() {
+    this(Filesystem.getDeployDirectory().toPath().resolve("trajectories"));
+  }
+
+  public TrajectoryCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the cached trajectory for {@code name} if it was generated from the same inputs,
+   * otherwise generates it and updates the cache.
+   */
+  public Trajectory getTrajectory(String name, Pose2d start, List<Translation2d> waypoints,
+      Pose2d end, TrajectoryConfig config) {
+    if (!isCacheable(config)) {
+      logger.info("trajectory {} has constraints that can't be keyed, not caching", name);
+      return TrajectoryGenerator.generateTrajectory(start, waypoints, end, config);
+    }
+    long key = key(start, waypoints, end, config);
+    Path path = directory.resolve(name + kExtension);
+
+    if (Files.isReadable(path)) {
+      try {
+        Trajectory trajectory = read(path, key);
+        if (trajectory != null) {
+          logger.info("loaded cached trajectory {} from {}", name, path);
+          return trajectory;
+        }
+        logger.info("cached trajectory {} is stale, regenerating", name);
+      } catch (IOException | RuntimeException e) {
+        logger.warn("unable to read cached trajectory {}", path, e);
+      }
+    }
+
+    Trajectory trajectory = TrajectoryGenerator.generateTrajectory(start, waypoints, end, config);
+    try {
+      write(path, key, trajectory);
+      logger.info("wrote cached trajectory {} to {}", name, path);
+    } catch (IOException e) {
+      logger.warn("unable to write cached trajectory {}", path, e);
+    }
+    return trajectory;
+  }
+
+  /**
+   * Computes the key for a set of trajectory generator inputs. Keys of configs that aren't
+   * {@link #isCacheable cacheable} include constraint identities and are only stable for the life
+   * of the process.
+   */
+  public static long key(Pose2d start, List<Translation2d> waypoints, Pose2d end,
+      TrajectoryConfig config) {
+    long hash = 0xcbf29ce484222325L;
+    hash = mix(hash, start.getX());
+    hash = mix(hash, start.getY());
+    hash = mix(hash, start.getRotation().getRadians());
+    hash = mix(hash, waypoints.size());
+    for (Translation2d waypoint : waypoints) {
+      hash = mix(hash, waypoint.getX());
+      hash = mix(hash, waypoint.getY());
+    }
+    hash = mix(hash, end.getX());
+    hash = mix(hash, end.getY());
+    hash = mix(hash, end.getRotation().getRadians());
+    hash = mix(hash, config.getMaxVelocity());
+    hash = mix(hash, config.getMaxAcceleration());
+    hash = mix(hash, config.getStartVelocity());
+    hash = mix(hash, config.getEndVelocity());
+    hash = mix(hash, config.isReversed() ? 1.0 : 0.0);
+    for (var constraint : config.getConstraints()) {
+      hash = mix(hash, constraint.getClass().getName().hashCode());
+      for (Field field : parameterFields(constraint)) {
+        hash = mix(hash, parameterValue(field, constraint));
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Returns true if every constraint in {@code config} is described by primitive parameters alone,
+   * so its key is the same from one boot to the next.
+   */
+  public static boolean isCacheable(TrajectoryConfig config) {
+    for (var constraint : config.getConstraints()) {
+      for (Field field : parameterFields(constraint)) {
+        if (!field.getType().isPrimitive()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static List<Field> parameterFields(TrajectoryConstraint constraint) {
+    var fields = new ArrayList<Field>();
+    for (Class<?> type = constraint.getClass(); type != Object.class; type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+          fields.add(field);
+        }
+      }
+    }
+    fields.sort(Comparator.comparing(Field::getName));
+    return fields;
+  }
+
+  private static double parameterValue(Field field, TrajectoryConstraint constraint) {
+    try {
+      field.setAccessible(true);
+      Object value = field.get(constraint);
+      if (value instanceof Number) {
+        return ((Number) value).doubleValue();
+      }
+      if (value instanceof Boolean) {
+        return (Boolean) value ? 1.0 : 0.0;
+      }
+      if (value instanceof Character) {
+        return (Character) value;
+      }
+      return System.identityHashCode(value);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return System.identityHashCode(constraint);
+    }
+  }
+
+  private static long mix(long hash, double value) {
+    long bits = Double.doubleToLongBits(value);
+    for (int i = 0; i < 8; i++) {
+      hash ^= (bits >>> (i * 8)) & 0xFF;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /**
+   * Reads a cached trajectory through a memory-mapped channel.
+   *
+   * @return the trajectory, or null if the file was written for a different key
+   */
+  static Trajectory read(Path path, long key) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+      if (buffer.remaining() < kHeaderBytes || buffer.getInt() != kMagic) {
+        throw new IOException("not a trajectory file: " + path);
+      }
+      if (buffer.getInt() != kVersion || buffer.getLong() != key) {
+        return null;
+      }
+      int count = buffer.getInt();
+      if (count <= 0 || buffer.remaining() != count * kStateBytes) {
+        throw new IOException("truncated trajectory file: " + path);
+      }
+
+      List<Trajectory.State> states = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        double time = buffer.getDouble();
+        double velocity = buffer.getDouble();
+        double acceleration = buffer.getDouble();
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        double heading = buffer.getDouble();
+        double curvature = buffer.getDouble();
+        states.add(new Trajectory.State(time, velocity, acceleration,
+            new Pose2d(x, y, new Rotation2d(heading)), curvature));
+      }
+      return new Trajectory(states);
+    }
+  }
+
+  /**
+   * Writes a trajectory to a temporary file and moves it into place so a partially written file
+   * is never read.
+   */
+  static void write(Path path, long key, Trajectory trajectory) throws IOException {
+    var states = trajectory.getStates();
+    ByteBuffer buffer = ByteBuffer.allocate(kHeaderBytes + states.size() * kStateBytes)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(kMagic).putInt(kVersion).putLong(key).putInt(states.size());
+    for (Trajectory.State state : states) {
+      buffer.putDouble(state.timeSeconds);
+      buffer.putDouble(state.velocityMetersPerSecond);
+      buffer.putDouble(state.accelerationMetersPerSecondSq);
+      buffer.putDouble(state.poseMeters.getX());
+      buffer.putDouble(state.poseMeters.getY());
+      buffer.putDouble(state.poseMeters.getRotation().getRadians());
+      buffer.putDouble(state.curvatureRadPerMeter);
+    }
+    buffer.flip();
+
+    Files.createDirectories(path.getParent());
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
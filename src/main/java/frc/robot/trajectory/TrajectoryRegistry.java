@@ -0,0 +1,180 @@
+package frc.robot.trajectory;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Named trajectories generated on a background thread. Declaring a trajectory starts generating
+ * it right away; commands hold a {@link Handle} and wait on {@link Handle#get()} in {@code
+ * initialize()}, by which time it is normally done.
+ *
+ * <p>Generated trajectories are kept compiled in an LRU cache bounded by size in bytes. An evicted
+ * trajectory is regenerated when next requested, which is quick because {@link TrajectoryCache}
+ * keeps it on disk. Entries are keyed by {@link TrajectoryCache#key}, so redeclaring a name with
+ * different inputs replaces it.
+ */
+public final class TrajectoryRegistry {
+
+  public static final long kDefaultMaxBytes = 8L * 1024 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(TrajectoryRegistry.class);
+
+  private final TrajectoryCache trajectoryCache;
+  private final long maxBytes;
+  private final ExecutorService executor;
+  private final Map<String, Handle> handles = new HashMap<>();
+  private final Map<Long, CompletableFuture<CompiledTrajectory>> pending = new HashMap<>();
+  private final LinkedHashMap<Long, CompiledTrajectory> generated =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long generatedBytes;
+
+  public TrajectoryRegistry() {
+    this(new TrajectoryCache(), kDefaultMaxBytes);
+  }
+
+  /**
+   * @param trajectoryCache on-disk cache used when generating
+   * @param maxBytes        approximate limit on heap used by generated trajectories
+   */
+  public TrajectoryRegistry(TrajectoryCache trajectoryCache, long maxBytes) {
+    this.trajectoryCache = trajectoryCache;
+    this.maxBytes = maxBytes;
+    executor = Executors.newSingleThreadExecutor(r -> {
+      var thread = new Thread(r, "TrajectoryRegistry");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  /**
+   * Declares a trajectory and starts generating it in the background.
+   */
+  public synchronized Handle declare(String name, Pose2d start, List<Translation2d> waypoints,
+      Pose2d end, TrajectoryConfig config) {
+    long key = TrajectoryCache.key(start, waypoints, end, config);
+    var handle = handles.get(name);
+    if (handle == null || handle.key != key) {
+      handle = new Handle(name, key, () -> new CompiledTrajectory(
+          trajectoryCache.getTrajectory(name, start, waypoints, end, config)));
+      handles.put(name, handle);
+    }
+    request(handle);
+    return handle;
+  }
+
+  /**
+   * Returns the handle for a declared trajectory.
+   *
+   * @throws IllegalArgumentException if {@code name} hasn't been declared
+   */
+  public synchronized Handle getHandle(String name) {
+    var handle = handles.get(name);
+    if (handle == null) {
+      throw new IllegalArgumentException("trajectory not declared: " + name);
+    }
+    return handle;
+  }
+
+  /**
+   * Returns the bytes currently held by generated trajectories.
+   */
+  public synchronized long getGeneratedBytes() {
+    return generatedBytes;
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private synchronized CompletableFuture<CompiledTrajectory> request(Handle handle) {
+    var trajectory = generated.get(handle.key);
+    if (trajectory != null) {
+      return CompletableFuture.completedFuture(trajectory);
+    }
+    var future = pending.get(handle.key);
+    if (future == null) {
+      future = CompletableFuture.supplyAsync(() -> generate(handle), executor);
+      pending.put(handle.key, future);
+      future.whenComplete((t, e) -> completed(handle, t, e));
+    }
+    return future;
+  }
+
+  private static CompiledTrajectory generate(Handle handle) {
+    long start = System.nanoTime();
+    var trajectory = handle.generator.get();
+    logger.info("generated trajectory {} in {} ms", handle.name,
+        String.format("%.1f", (System.nanoTime() - start) / 1e6));
+    return trajectory;
+  }
+
+  private synchronized void completed(Handle handle, CompiledTrajectory trajectory,
+      Throwable error) {
+    pending.remove(handle.key);
+    if (error != null) {
+      logger.error("unable to generate trajectory {}", handle.name, error);
+      return;
+    }
+    if (generated.put(handle.key, trajectory) == null) {
+      generatedBytes += trajectory.getSizeBytes();
+    }
+    var iterator = generated.entrySet().iterator();
+    while (generatedBytes > maxBytes && iterator.hasNext()) {
+      var eldest = iterator.next();
+      if (eldest.getKey() == handle.key) {
+        continue;
+      }
+      generatedBytes -= eldest.getValue().getSizeBytes();
+      iterator.remove();
+      logger.info("evicted trajectory with key {}", Long.toHexString(eldest.getKey()));
+    }
+  }
+
+  /**
+   * A declared trajectory.
+   */
+  public final class Handle {
+
+    private final String name;
+    private final long key;
+    private final Supplier<CompiledTrajectory> generator;
+
+    private Handle(String name, long key, Supplier<CompiledTrajectory> generator) {
+      this.name = name;
+      this.key = key;
+      this.generator = generator;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the trajectory, or a future that completes when it has been generated.
+     */
+    public CompletableFuture<CompiledTrajectory> get() {
+      return request(this);
+    }
+
+    /**
+     * Returns true if the trajectory is generated and cached.
+     */
+    public boolean isReady() {
+      synchronized (TrajectoryRegistry.this) {
+        return generated.containsKey(key);
+      }
+    }
+  }
+}
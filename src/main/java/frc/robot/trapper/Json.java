@@ -0,0 +1,116 @@
+package frc.robot.trapper;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Just enough JSON to talk to the Trapper REST API without pulling in a JSON library.
+ */
+final class Json {
+
+  private Json() {
+  }
+
+  /**
+   * Appends a JSON representation of {@code value}. Maps, collections, strings, numbers and
+   * booleans are encoded natively; anything else is encoded as its {@code toString()}.
+   */
+  static StringBuilder write(StringBuilder sb, Object value) {
+    if (value == null) {
+      sb.append("null");
+    } else if (value instanceof Map) {
+      sb.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        writeString(sb, String.valueOf(entry.getKey()));
+        sb.append(':');
+        write(sb, entry.getValue());
+      }
+      sb.append('}');
+    } else if (value instanceof Collection) {
+      sb.append('[');
+      boolean first = true;
+      for (Object item : (Collection<?>) value) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        write(sb, item);
+      }
+      sb.append(']');
+    } else if (value instanceof Double || value instanceof Float) {
+      writeNumber(sb, ((Number) value).doubleValue());
+    } else if (value instanceof Number || value instanceof Boolean) {
+      sb.append(value);
+    } else {
+      writeString(sb, value.toString());
+    }
+    return sb;
+  }
+
+  static String toJson(Object value) {
+    return write(new StringBuilder(), value).toString();
+  }
+
+  /**
+   * Appends a finite number; NaN and infinities are not valid JSON and are written as null.
+   */
+  static void writeNumber(StringBuilder sb, double value) {
+    if (Double.isFinite(value)) {
+      sb.append(value);
+    } else {
+      sb.append("null");
+    }
+  }
+
+  static void writeString(StringBuilder sb, String value) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+
+  /**
+   * Returns the first top-level string or number value for {@code key} in a JSON object response,
+   * or null if not present.
+   */
+  static String field(String json, String key) {
+    Pattern pattern = Pattern.compile(
+        "\"" + Pattern.quote(key) + "\"\\s*:\\s*(?:\"((?:[^\"\\\\]|\\\\.)*)\"|(-?[0-9.eE+-]+))");
+    Matcher matcher = pattern.matcher(json);
+    if (!matcher.find()) {
+      return null;
+    }
+    return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+  }
+}
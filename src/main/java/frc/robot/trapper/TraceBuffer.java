@@ -0,0 +1,121 @@
+package frc.robot.trapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.strykeforce.trapper.Trace;
+
+/**
+ * Preallocated columnar capture buffer for Trapper traces. Each measure name gets its own {@code
+ * double[]} column so capturing a row in the robot loop allocates nothing. When full, the oldest
+ * rows are overwritten. {@link Trace} objects are only built by {@link #toTraces()}, after the
+ * capturing command has ended.
+ */
+public final class TraceBuffer {
+
+  private final List<String> names;
+  private final int capacity;
+  private final int[] times;
+  private final double[][] columns;
+  private int head; // next row to write
+  private int size;
+
+  /**
+   * Creates a buffer with a column for each of {@code names}.
+   *
+   * @param names    the measure names, in trace data order
+   * @param capacity the number of rows to keep
+   */
+  public TraceBuffer(List<String> names, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.names = List.copyOf(names);
+    this.capacity = capacity;
+    times = new int[capacity];
+    columns = new double[this.names.size()][capacity];
+  }
+
+  /**
+   * Starts a new row and returns its index for use with {@link #set(int, int, double)}.
+   *
+   * @param timeMillis the trace time in milliseconds
+   */
+  public int append(int timeMillis) {
+    int row = head;
+    times[row] = timeMillis;
+    head = (head + 1) % capacity;
+    if (size < capacity) {
+      size++;
+    }
+    return row;
+  }
+
+  /**
+   * Stores a value in the given column of a row returned by {@link #append(int)}.
+   */
+  public void set(int row, int column, double value) {
+    columns[column][row] = value;
+  }
+
+  public void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public List<String> getNames() {
+    return names;
+  }
+
+  /**
+   * Returns the index of a named column or -1 if not present.
+   */
+  public int columnOf(String name) {
+    return names.indexOf(name);
+  }
+
+  /**
+   * Returns the time in milliseconds of the i-th oldest row.
+   */
+  public int getTime(int i) {
+    return times[physical(i)];
+  }
+
+  /**
+   * Returns the value of a column in the i-th oldest row.
+   */
+  public double get(int i, int column) {
+    return columns[column][physical(i)];
+  }
+
+  /**
+   * Builds Trapper traces from the captured rows, oldest first. Intended for upload time only.
+   */
+  public List<Trace> toTraces() {
+    List<Trace> traces = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int row = physical(i);
+      var trace = new Trace(times[row]);
+      var data = trace.getData();
+      for (double[] column : columns) {
+        data.add(column[row]);
+      }
+      traces.add(trace);
+    }
+    return traces;
+  }
+
+  private int physical(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("row " + i + " of " + size);
+    }
+    return (head - size + i + capacity) % capacity;
+  }
+}
@@ -0,0 +1,267 @@
+package frc.robot.trapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact single-request encoding of a {@link TrapperRun}: activity, action and all traces in one
+ * body, with traces stored by column.
+ *
+ * <pre>
+ * int     magic "TRB1"
+ * byte    flags, FLAG_GZIP if everything after this byte is gzipped
+ * UTF     activity name, activity meta JSON, action name, action meta JSON
+ * varint  measure count, then UTF measure names
+ * varint  trace count
+ * times   zigzag varint deltas in milliseconds
+ * columns per measure: byte encoding, then
+ *           FLOAT64   8-byte doubles
+ *           FLOAT32   4-byte floats
+ *           QUANTIZED double quantum, then zigzag varint deltas of round(value / quantum)
+ * </pre>
+ *
+ * <p>A quantized column that has non-finite or out-of-range values is written as FLOAT64 instead.
+ */
+public final class TrapperBundle {
+
+  public static final String kContentType = "application/vnd.trapper.bundle";
+
+  static final int kMagic = 0x54524231; // "TRB1"
+  static final int FLAG_GZIP = 0x01;
+
+  public enum Encoding {
+    FLOAT64, FLOAT32, QUANTIZED
+  }
+
+  private TrapperBundle() {
+  }
+
+  /**
+   * Encoding choices for a bundle.
+   */
+  public static final class Options {
+
+    public static final Options DEFAULT = new Options(Encoding.QUANTIZED, 1e-4, true, 0.0);
+
+    final Encoding encoding;
+    final double quantum;
+    final boolean gzip;
+    final double decimateHz;
+
+    /**
+     * @param encoding   how trace values are stored
+     * @param quantum    resolution for {@link Encoding#QUANTIZED}
+     * @param gzip       compress the body
+     * @param decimateHz keep traces at most this often, or 0 to keep all
+     */
+    public Options(Encoding encoding, double quantum, boolean gzip, double decimateHz) {
+      if (encoding == Encoding.QUANTIZED && !(quantum > 0.0)) {
+        throw new IllegalArgumentException("quantum must be positive: " + quantum);
+      }
+      this.encoding = encoding;
+      this.quantum = quantum;
+      this.gzip = gzip;
+      this.decimateHz = decimateHz;
+    }
+  }
+
+  public static byte[] encode(TrapperRun run, Options options) {
+    int[] kept = decimate(run, options.decimateHz);
+    int columns = run.getMeasures().size();
+    var bytes = new ByteArrayOutputStream(256 + kept.length * columns * 4);
+    try {
+      var header = new DataOutputStream(bytes);
+      header.writeInt(kMagic);
+      header.writeByte(options.gzip ? FLAG_GZIP : 0);
+      header.flush();
+      var body = options.gzip ? new GZIPOutputStream(bytes, 8192) : bytes;
+      try (var out = new DataOutputStream(body)) {
+        out.writeUTF(run.getActivityName());
+        out.writeUTF(run.getActivityMetaJson());
+        out.writeUTF(run.getActionName());
+        out.writeUTF(run.getActionMetaJson());
+        writeVarLong(out, columns);
+        for (String measure : run.getMeasures()) {
+          out.writeUTF(measure);
+        }
+        writeVarLong(out, kept.length);
+        long previous = 0;
+        for (int trace : kept) {
+          writeVarLong(out, zigzag(run.getTime(trace) - previous));
+          previous = run.getTime(trace);
+        }
+        for (int column = 0; column < columns; column++) {
+          writeColumn(out, run, kept, column, options);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static TrapperRun decode(byte[] bundle) throws IOException {
+    var header = new DataInputStream(new ByteArrayInputStream(bundle));
+    if (header.readInt() != kMagic) {
+      throw new IOException("not a Trapper bundle");
+    }
+    int flags = header.readUnsignedByte();
+    InputStream body = header;
+    if ((flags & FLAG_GZIP) != 0) {
+      body = new GZIPInputStream(header, 8192);
+    }
+    try (var in = new DataInputStream(body)) {
+      String activityName = in.readUTF();
+      String activityMeta = in.readUTF();
+      String actionName = in.readUTF();
+      String actionMeta = in.readUTF();
+      int columns = (int) readVarLong(in);
+      List<String> measures = new ArrayList<>(columns);
+      for (int i = 0; i < columns; i++) {
+        measures.add(in.readUTF());
+      }
+      int size = (int) readVarLong(in);
+      int[] times = new int[size];
+      long previous = 0;
+      for (int i = 0; i < size; i++) {
+        previous += unzigzag(readVarLong(in));
+        times[i] = (int) previous;
+      }
+      double[][] rows = new double[size][columns];
+      for (int column = 0; column < columns; column++) {
+        readColumn(in, rows, column);
+      }
+      return new TrapperRun(activityName, activityMeta, actionName, actionMeta, measures, times,
+          rows);
+    }
+  }
+
+  /**
+   * Returns the indexes of the traces to keep, always including the first and last.
+   */
+  static int[] decimate(TrapperRun run, double decimateHz) {
+    int count = run.getTraceCount();
+    if (decimateHz <= 0.0 || count <= 2) {
+      int[] all = new int[count];
+      for (int i = 0; i < count; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+    double intervalMillis = 1000.0 / decimateHz;
+    int[] kept = new int[count];
+    int size = 0;
+    kept[size++] = 0;
+    double last = run.getTime(0);
+    for (int i = 1; i < count - 1; i++) {
+      if (run.getTime(i) - last >= intervalMillis - 1e-9) {
+        kept[size++] = i;
+        last = run.getTime(i);
+      }
+    }
+    kept[size++] = count - 1;
+    int[] result = new int[size];
+    System.arraycopy(kept, 0, result, 0, size);
+    return result;
+  }
+
+  private static void writeColumn(DataOutput out, TrapperRun run, int[] kept, int column,
+      Options options) throws IOException {
+    var encoding = options.encoding;
+    if (encoding == Encoding.QUANTIZED && !quantizable(run, kept, column, options.quantum)) {
+      encoding = Encoding.FLOAT64;
+    }
+    out.writeByte(encoding.ordinal());
+    switch (encoding) {
+      case FLOAT32:
+        for (int trace : kept) {
+          out.writeFloat((float) run.getData(trace)[column]);
+        }
+        break;
+      case QUANTIZED:
+        out.writeDouble(options.quantum);
+        long previous = 0;
+        for (int trace : kept) {
+          long quantized = Math.round(run.getData(trace)[column] / options.quantum);
+          writeVarLong(out, zigzag(quantized - previous));
+          previous = quantized;
+        }
+        break;
+      default:
+        for (int trace : kept) {
+          out.writeDouble(run.getData(trace)[column]);
+        }
+    }
+  }
+
+  private static boolean quantizable(TrapperRun run, int[] kept, int column, double quantum) {
+    for (int trace : kept) {
+      double scaled = run.getData(trace)[column] / quantum;
+      if (!Double.isFinite(scaled) || Math.abs(scaled) > (1L << 52)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void readColumn(DataInput in, double[][] rows, int column) throws IOException {
+    int encoding = in.readUnsignedByte();
+    if (encoding == Encoding.FLOAT32.ordinal()) {
+      for (double[] row : rows) {
+        row[column] = in.readFloat();
+      }
+    } else if (encoding == Encoding.QUANTIZED.ordinal()) {
+      double quantum = in.readDouble();
+      long previous = 0;
+      for (double[] row : rows) {
+        previous += unzigzag(readVarLong(in));
+        row[column] = previous * quantum;
+      }
+    } else if (encoding == Encoding.FLOAT64.ordinal()) {
+      for (double[] row : rows) {
+        row[column] = in.readDouble();
+      }
+    } else {
+      throw new IOException("unknown column encoding " + encoding);
+    }
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeVarLong(DataOutput out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInput in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("malformed varint");
+  }
+}
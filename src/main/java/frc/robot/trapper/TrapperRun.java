@@ -0,0 +1,137 @@
+package frc.robot.trapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One activity, its action and the action's traces, captured as a self-contained snapshot so it can
+ * be spooled to disk and uploaded later. Meta maps are stored as JSON.
+ */
+public final class TrapperRun {
+
+  private final String activityName;
+  private final String activityMeta;
+  private final String actionName;
+  private final String actionMeta;
+  private final List<String> measures;
+  private final int[] times;
+  private final double[][] rows;
+
+  TrapperRun(String activityName, String activityMeta, String actionName, String actionMeta,
+      List<String> measures, int[] times, double[][] rows) {
+    this.activityName = activityName;
+    this.activityMeta = activityMeta;
+    this.actionName = actionName;
+    this.actionMeta = actionMeta;
+    this.measures = measures;
+    this.times = times;
+    this.rows = rows;
+  }
+
+  /**
+   * Copies the activity, action and captured traces into a new run.
+   */
+  public static TrapperRun of(String activityName, Map<String, Object> activityMeta,
+      String actionName, Map<String, Object> actionMeta, TraceBuffer traceBuffer) {
+    int size = traceBuffer.size();
+    int columns = traceBuffer.getNames().size();
+    int[] times = new int[size];
+    double[][] rows = new double[size][columns];
+    for (int i = 0; i < size; i++) {
+      times[i] = traceBuffer.getTime(i);
+      for (int j = 0; j < columns; j++) {
+        rows[i][j] = traceBuffer.get(i, j);
+      }
+    }
+    return new TrapperRun(activityName, Json.toJson(activityMeta), actionName,
+        Json.toJson(actionMeta), traceBuffer.getNames(), times, rows);
+  }
+
+  public String getActivityName() {
+    return activityName;
+  }
+
+  public String getActivityMetaJson() {
+    return activityMeta;
+  }
+
+  public String getActionName() {
+    return actionName;
+  }
+
+  public String getActionMetaJson() {
+    return actionMeta;
+  }
+
+  public List<String> getMeasures() {
+    return measures;
+  }
+
+  public int getTraceCount() {
+    return times.length;
+  }
+
+  public int getTime(int trace) {
+    return times[trace];
+  }
+
+  public double[] getData(int trace) {
+    return rows[trace];
+  }
+
+  byte[] encode() {
+    var bytes = new ByteArrayOutputStream(64 + times.length * (4 + 8 * measures.size()));
+    try (var out = new DataOutputStream(bytes)) {
+      out.writeUTF(activityName);
+      out.writeUTF(activityMeta);
+      out.writeUTF(actionName);
+      out.writeUTF(actionMeta);
+      out.writeInt(measures.size());
+      for (String measure : measures) {
+        out.writeUTF(measure);
+      }
+      out.writeInt(times.length);
+      for (int i = 0; i < times.length; i++) {
+        out.writeInt(times[i]);
+        for (double value : rows[i]) {
+          out.writeDouble(value);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  static TrapperRun decode(byte[] payload) throws IOException {
+    try (var in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      String activityName = in.readUTF();
+      String activityMeta = in.readUTF();
+      String actionName = in.readUTF();
+      String actionMeta = in.readUTF();
+      int measureCount = in.readInt();
+      List<String> measures = new ArrayList<>(measureCount);
+      for (int i = 0; i < measureCount; i++) {
+        measures.add(in.readUTF());
+      }
+      int size = in.readInt();
+      int[] times = new int[size];
+      double[][] rows = new double[size][measureCount];
+      for (int i = 0; i < size; i++) {
+        times[i] = in.readInt();
+        for (int j = 0; j < measureCount; j++) {
+          rows[i][j] = in.readDouble();
+        }
+      }
+      return new TrapperRun(activityName, activityMeta, actionName, actionMeta, measures, times,
+          rows);
+    }
+  }
+}
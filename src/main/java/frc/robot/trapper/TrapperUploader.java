@@ -0,0 +1,266 @@
+package frc.robot.trapper;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uploads {@link TrapperRun}s to Trapper from a background thread. Runs are appended to an on-disk
+ * {@link UploadSpool} before upload and removed only after the server accepts all of their parts,
+ * so anything not uploaded is resumed on the next boot. Failed uploads are retried with
+ * exponential backoff, resuming after the last part the server accepted. A run the server rejects
+ * with a client error is quarantined by the spool instead of being retried.
+ *
+ * <p>By default each run is uploaded as an activity, an action and batches of JSON traces. With
+ * {@link #setBundleOptions(TrapperBundle.Options)} the whole run is sent as one {@link
+ * TrapperBundle} request instead, which needs a server that accepts {@code /bundles/}.
+ */
+public class TrapperUploader {
+
+  static final int kTracesPerRequest = 500;
+  static final int kTimeoutMillis = 2_000;
+  static final long kMinBackoffMillis = 1_000;
+  static final long kMaxBackoffMillis = 60_000;
+
+  private static final Logger logger = LoggerFactory.getLogger(TrapperUploader.class);
+
+  private final String baseUrl;
+  private final Path spoolDirectory;
+  private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+  private final Thread thread;
+  private volatile boolean running;
+  private volatile TrapperBundle.Options bundleOptions;
+
+  /**
+   * Creates an uploader spooling to the {@code trapper} folder of the operating directory.
+   *
+   * @param baseUrl the Trapper server, for example {@code http://192.168.3.3:3003}
+   */
+  public TrapperUploader(String baseUrl) {
+    this(baseUrl, Filesystem.getOperatingDirectory().toPath().resolve("trapper"));
+  }
+
+  public TrapperUploader(String baseUrl, Path spoolDirectory) {
+    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    this.spoolDirectory = spoolDirectory;
+    thread = new Thread(this::run, "TrapperUploader");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+  }
+
+  /**
+   * Starts the upload thread, which first resumes anything left in the spool.
+   */
+  public void start() {
+    running = true;
+    thread.start();
+  }
+
+  /**
+   * Stops the upload thread. Spooled runs not yet uploaded remain on disk.
+   */
+  public void stop() throws InterruptedException {
+    running = false;
+    thread.interrupt();
+    thread.join(kTimeoutMillis * 2L);
+  }
+
+  /**
+   * Uploads each run as a single bundle request, or as separate JSON requests if {@code null}.
+   */
+  public void setBundleOptions(TrapperBundle.Options bundleOptions) {
+    this.bundleOptions = bundleOptions;
+  }
+
+  /**
+   * Queues a run for upload. Encoding happens on the caller's thread, everything else on the
+   * upload thread, so this never waits on disk or network.
+   */
+  public void submit(TrapperRun run) {
+    queue.add(run.encode());
+  }
+
+  private void run() {
+    UploadSpool spool;
+    try {
+      spool = new UploadSpool(spoolDirectory);
+    } catch (IOException e) {
+      logger.error("unable to open upload spool in {}, uploads disabled", spoolDirectory, e);
+      return;
+    }
+
+    long backoff = kMinBackoffMillis;
+    long nextAttempt = 0;
+    try (spool) {
+      while (running) {
+        try {
+          long wait = spool.isEmpty() ? kMaxBackoffMillis
+              : Math.max(0, nextAttempt - System.currentTimeMillis());
+          byte[] submitted = queue.poll(wait, TimeUnit.MILLISECONDS);
+          while (submitted != null) {
+            spool.append(submitted);
+            submitted = queue.poll();
+          }
+          if (System.currentTimeMillis() < nextAttempt) {
+            continue;
+          }
+
+          byte[] payload = spool.peek();
+          if (payload == null) {
+            continue;
+          }
+          try {
+            upload(TrapperRun.decode(payload), spool);
+            spool.commit();
+            backoff = kMinBackoffMillis;
+            nextAttempt = 0;
+          } catch (RejectedException e) {
+            logger.error("Trapper rejected upload: {}", e.getMessage());
+            spool.reject(payload);
+          } catch (IOException e) {
+            logger.warn("Trapper upload failed, retrying in {} ms: {}", backoff, e.toString());
+            nextAttempt = System.currentTimeMillis() + backoff;
+            backoff = Math.min(backoff * 2, kMaxBackoffMillis);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    } catch (IOException e) {
+      logger.error("upload spool failed", e);
+    }
+  }
+
+  /**
+   * Uploads the oldest spooled run, saving progress in the spool after each accepted part.
+   */
+  void upload(TrapperRun run, UploadSpool spool) throws IOException {
+    var options = bundleOptions;
+    if (options != null) {
+      uploadBundle(run, options);
+      return;
+    }
+    // progress is "activityUrl\nactionId\ntracesUploaded", with trailing parts absent until done
+    String[] progress = spool.getProgress().isEmpty() ? new String[0]
+        : spool.getProgress().split("\n");
+    String activityUrl = progress.length > 0 ? progress[0] : null;
+    String actionId = progress.length > 1 ? progress[1] : null;
+    int uploaded = 0;
+    if (progress.length > 2) {
+      try {
+        uploaded = Integer.parseInt(progress[2]);
+      } catch (NumberFormatException e) {
+        logger.warn("ignoring invalid upload progress {}", progress[2]);
+      }
+    }
+
+    if (activityUrl == null) {
+      var activity = new StringBuilder("{\"name\":");
+      Json.writeString(activity, run.getActivityName());
+      activity.append(",\"meta\":").append(run.getActivityMetaJson()).append('}');
+      activityUrl = Json.field(post("/activities/", activity.toString()), "url");
+      if (activityUrl == null) {
+        throw new IOException("activity response missing url");
+      }
+      spool.setProgress(activityUrl);
+    }
+
+    if (actionId == null) {
+      var action = new StringBuilder("{\"name\":");
+      Json.writeString(action, run.getActionName());
+      action.append(",\"activity\":");
+      Json.writeString(action, activityUrl);
+      action.append(",\"meta\":").append(run.getActionMetaJson());
+      action.append(",\"measures\":");
+      Json.write(action, run.getMeasures());
+      action.append('}');
+      actionId = Json.field(post("/actions/", action.toString()), "id");
+      if (actionId == null) {
+        throw new IOException("action response missing id");
+      }
+      spool.setProgress(activityUrl + "\n" + actionId);
+    }
+
+    for (int start = uploaded; start < run.getTraceCount(); start += kTracesPerRequest) {
+      int end = Math.min(start + kTracesPerRequest, run.getTraceCount());
+      var traces = new StringBuilder(64 * (end - start)).append('[');
+      for (int i = start; i < end; i++) {
+        if (i > start) {
+          traces.append(',');
+        }
+        traces.append("{\"action\":").append(actionId);
+        traces.append(",\"time\":").append(run.getTime(i)).append(",\"data\":[");
+        double[] data = run.getData(i);
+        for (int j = 0; j < data.length; j++) {
+          if (j > 0) {
+            traces.append(',');
+          }
+          Json.writeNumber(traces, data[j]);
+        }
+        traces.append("]}");
+      }
+      traces.append(']');
+      post("/traces/", traces.toString());
+      spool.setProgress(activityUrl + "\n" + actionId + "\n" + end);
+    }
+    logger.info("uploaded {} traces for action {}", run.getTraceCount(), actionId);
+  }
+
+  void uploadBundle(TrapperRun run, TrapperBundle.Options options) throws IOException {
+    byte[] bundle = TrapperBundle.encode(run, options);
+    post("/bundles/", bundle, TrapperBundle.kContentType);
+    logger.info("uploaded {} traces in {} byte bundle", run.getTraceCount(), bundle.length);
+  }
+
+  private String post(String path, String json) throws IOException {
+    return post(path, json.getBytes(StandardCharsets.UTF_8), "application/json");
+  }
+
+  private String post(String path, byte[] body, String contentType) throws IOException {
+    var connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    try {
+      connection.setConnectTimeout(kTimeoutMillis);
+      connection.setReadTimeout(kTimeoutMillis);
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", contentType);
+      connection.setFixedLengthStreamingMode(body.length);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      }
+      int status = connection.getResponseCode();
+      if (status / 100 == 4 && status != 408 && status != 429) {
+        throw new RejectedException("POST " + path + " returned HTTP " + status);
+      }
+      if (status / 100 != 2) {
+        throw new IOException("POST " + path + " returned HTTP " + status);
+      }
+      try (InputStream in = connection.getInputStream()) {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Thrown when the server refuses a request with a client error, so retrying can't succeed.
+   */
+  static final class RejectedException extends IOException {
+
+    RejectedException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package frc.robot.trapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only spool file of upload records with a separate committed-offset file. Records past the
+ * committed offset survive a reboot and are uploaded on the next boot. Each record is its length,
+ * a CRC32 of the payload, then the payload; a torn record at the end of the file is discarded.
+ *
+ * <p>The offset file also holds an upload progress string for the oldest record, so a multi-part
+ * upload interrupted by a reboot or a failed request resumes where it stopped rather than posting
+ * the parts that already succeeded again. Records the server rejects are moved to the {@code
+ * rejected} folder for inspection.
+ *
+ * <p>Not thread-safe, only the uploader thread uses it.
+ */
+final class UploadSpool implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(UploadSpool.class);
+  private static final int kRecordHeaderBytes = 8;
+
+  private final Path offsetPath;
+  private final Path rejectedDirectory;
+  private final FileChannel channel;
+  private long committed;
+  private String progress = "";
+  private long pendingEnd = -1;
+
+  UploadSpool(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    offsetPath = directory.resolve("spool.offset");
+    rejectedDirectory = directory.resolve("rejected");
+    channel = FileChannel.open(directory.resolve("spool.dat"), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    readOffset();
+    if (committed > channel.size()) {
+      committed = 0;
+      progress = "";
+    }
+    truncateTornRecord();
+  }
+
+  /**
+   * Appends a record and forces it to disk.
+   */
+  void append(byte[] payload) throws IOException {
+    var crc = new CRC32();
+    crc.update(payload);
+    ByteBuffer buffer = ByteBuffer.allocate(kRecordHeaderBytes + payload.length);
+    buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+    long position = channel.size();
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    channel.force(false);
+  }
+
+  /**
+   * Returns the oldest uncommitted record, or null if the spool is drained.
+   */
+  byte[] peek() throws IOException {
+    long size = channel.size();
+    if (committed + kRecordHeaderBytes > size) {
+      return null;
+    }
+    ByteBuffer header = ByteBuffer.allocate(kRecordHeaderBytes);
+    readFully(header, committed);
+    header.flip();
+    int length = header.getInt();
+    int checksum = header.getInt();
+    if (length < 0 || length > size - committed - kRecordHeaderBytes) {
+      // without a valid length the following records can't be located either
+      logger.error("discarding {} bytes of spool with invalid record length {} at offset {}",
+          size - committed, length, committed);
+      channel.truncate(committed);
+      pendingEnd = committed;
+      commit();
+      return null;
+    }
+    byte[] payload = new byte[length];
+    readFully(ByteBuffer.wrap(payload), committed + kRecordHeaderBytes);
+
+    var crc = new CRC32();
+    crc.update(payload);
+    pendingEnd = committed + kRecordHeaderBytes + length;
+    if ((int) crc.getValue() != checksum) {
+      logger.error("discarding corrupt spool record at offset {}", committed);
+      commit();
+      return peek();
+    }
+    return payload;
+  }
+
+  /**
+   * Marks the record returned by the last {@link #peek()} as uploaded. Once everything is
+   * uploaded the spool file is truncated.
+   */
+  void commit() throws IOException {
+    if (pendingEnd < 0) {
+      throw new IllegalStateException("no record to commit");
+    }
+    committed = pendingEnd;
+    pendingEnd = -1;
+    progress = "";
+    if (committed == channel.size()) {
+      channel.truncate(0);
+      committed = 0;
+    }
+    writeOffset();
+  }
+
+  /**
+   * Copies the record returned by the last {@link #peek()} to the rejected folder and commits it.
+   */
+  void reject(byte[] payload) throws IOException {
+    Files.createDirectories(rejectedDirectory);
+    Path path = rejectedDirectory.resolve(System.currentTimeMillis() + "-" + committed + ".run");
+    Files.write(path, payload);
+    logger.error("moved rejected spool record to {}", path);
+    commit();
+  }
+
+  /**
+   * Returns the upload progress saved for the oldest uncommitted record, empty if none.
+   */
+  String getProgress() {
+    return progress;
+  }
+
+  /**
+   * Saves upload progress for the oldest uncommitted record, cleared when it's committed.
+   */
+  void setProgress(String progress) throws IOException {
+    this.progress = progress;
+    writeOffset();
+  }
+
+  boolean isEmpty() throws IOException {
+    return committed >= channel.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void truncateTornRecord() throws IOException {
+    long position = committed;
+    long size = channel.size();
+    ByteBuffer header = ByteBuffer.allocate(kRecordHeaderBytes);
+    while (position + kRecordHeaderBytes <= size) {
+      header.clear();
+      readFully(header, position);
+      header.flip();
+      int length = header.getInt();
+      long end = position + kRecordHeaderBytes + length;
+      if (length < 0 || end > size) {
+        break;
+      }
+      position = end;
+    }
+    if (position < size) {
+      logger.warn("truncating {} bytes of torn spool record", size - position);
+      channel.truncate(position);
+    }
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("unexpected end of spool");
+      }
+      position += read;
+    }
+  }
+
+  private void readOffset() throws IOException {
+    if (!Files.exists(offsetPath)) {
+      return;
+    }
+    String[] lines = Files.readString(offsetPath).split("\n", 2);
+    try {
+      committed = Long.parseLong(lines[0].trim());
+      progress = lines.length > 1 ? lines[1] : "";
+    } catch (NumberFormatException e) {
+      logger.warn("ignoring invalid spool offset file {}", offsetPath);
+    }
+  }
+
+  private void writeOffset() throws IOException {
+    Path tmp = offsetPath.resolveSibling("spool.offset.tmp");
+    Files.writeString(tmp, committed + "\n" + progress);
+    Files.move(tmp, offsetPath, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+}
@@ -0,0 +1,91 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.NotifierRobot.OverrunPolicy;
+import org.junit.jupiter.api.Test;
+
+class CycleScheduleTest {
+
+  static final long kPeriod = 20_000;
+
+  @Test
+  void schedulesOnePeriodAfterOnTimeCycle() {
+    for (OverrunPolicy policy : OverrunPolicy.values()) {
+      var schedule = new CycleSchedule(kPeriod, policy);
+      assertEquals(kPeriod, schedule.nextExpiration(0, 5_000), policy.name());
+      assertEquals(3 * kPeriod, schedule.nextExpiration(2 * kPeriod, 3 * kPeriod - 1),
+          policy.name());
+      assertFalse(schedule.isShedding(), policy.name());
+    }
+  }
+
+  @Test
+  void skipResumesOnNextPeriodBoundary() {
+    var schedule = new CycleSchedule(kPeriod, OverrunPolicy.SKIP);
+    // ending exactly on the next start still counts as an overrun
+    assertEquals(2 * kPeriod, schedule.nextExpiration(0, kPeriod));
+    // ran through two more starts, so both are dropped
+    assertEquals(3 * kPeriod, schedule.nextExpiration(0, 45_000));
+    assertEquals(13 * kPeriod, schedule.nextExpiration(10 * kPeriod, 12 * kPeriod));
+    assertFalse(schedule.isShedding());
+  }
+
+  @Test
+  void catchUpRunsMissedCyclesUpToLimit() {
+    var schedule = new CycleSchedule(kPeriod, OverrunPolicy.CATCH_UP);
+    long expiration = 0;
+    long end = 10 * kPeriod;
+    for (int i = 0; i < NotifierRobot.kMaxCatchUpCycles; i++) {
+      long next = schedule.nextExpiration(expiration, end);
+      assertEquals(expiration + kPeriod, next, "catch up cycle " + i);
+      expiration = next;
+    }
+    // still behind after the limit, so skip to the next boundary after the end
+    assertEquals(11 * kPeriod, schedule.nextExpiration(expiration, end));
+    // and the count starts over
+    assertEquals(11 * kPeriod + kPeriod, schedule.nextExpiration(11 * kPeriod, 13 * kPeriod));
+  }
+
+  @Test
+  void onTimeCycleResetsCatchUpCount() {
+    var schedule = new CycleSchedule(kPeriod, OverrunPolicy.CATCH_UP);
+    long expiration = 0;
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < NotifierRobot.kMaxCatchUpCycles; i++) {
+        long next = schedule.nextExpiration(expiration, expiration + 2 * kPeriod);
+        assertEquals(expiration + kPeriod, next, "round " + round + " cycle " + i);
+        expiration = next;
+      }
+      expiration = schedule.nextExpiration(expiration, expiration + 1);
+    }
+  }
+
+  @Test
+  void shedsForWindowAfterOverrun() {
+    var schedule = new CycleSchedule(kPeriod, OverrunPolicy.SHED);
+    assertEquals(3 * kPeriod, schedule.nextExpiration(0, 50_000));
+    for (int i = 0; i < NotifierRobot.kShedCycles; i++) {
+      assertTrue(schedule.isShedding(), "cycle " + i);
+      schedule.cycleDone();
+    }
+    assertFalse(schedule.isShedding());
+  }
+
+  @Test
+  void overrunWhileSheddingRestartsWindow() {
+    var schedule = new CycleSchedule(kPeriod, OverrunPolicy.SHED);
+    schedule.nextExpiration(0, kPeriod);
+    for (int i = 0; i < NotifierRobot.kShedCycles - 1; i++) {
+      schedule.cycleDone();
+    }
+    schedule.nextExpiration(0, kPeriod);
+    for (int i = 0; i < NotifierRobot.kShedCycles; i++) {
+      assertTrue(schedule.isShedding(), "cycle " + i);
+      schedule.cycleDone();
+    }
+    assertFalse(schedule.isShedding());
+  }
+}
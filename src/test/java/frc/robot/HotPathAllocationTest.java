@@ -0,0 +1,121 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import edu.wpi.first.wpilibj.Joystick;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import frc.robot.RobotContainer.Axis;
+import frc.robot.commands.ActivityCommandGroup;
+import frc.robot.commands.DriveTrajectoryCommand;
+import frc.robot.profiler.LoopProfiler;
+import frc.robot.sim.SwerveSimulation;
+import frc.robot.subsystems.DriveSubsystem;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.strykeforce.trapper.TrapperSubsystem;
+
+/**
+ * Fails the build when a robot loop hot path allocates more per call than its budget. Each path
+ * runs against the simulated drive long enough for the JIT to compile it, then bytes allocated by
+ * this thread are averaged over many calls.
+ *
+ * <p>Budgets are bytes per call, about a quarter above what WPILib kinematics, odometry and the
+ * simulated modules allocate underneath our code, so a new per-loop object of any size fails the
+ * build rather than hiding in the headroom. The failure message reports the measured bytes; lower
+ * a budget when the library allocation under it is replaced.
+ */
+class HotPathAllocationTest {
+
+  static final long kPeriodicBudget = 2560;
+  static final long kDriveBudget = 1024;
+  static final long kMoveBudget = 1024;
+  static final long kTrajectoryExecuteBudget = 2048;
+  static final long kTeleopDriveBudget = 1280;
+
+  static final int kWarmupCalls = 20_000;
+  static final int kMeasuredCalls = 10_000;
+
+  private static final com.sun.management.ThreadMXBean threadBean =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private static SwerveSimulation simulation;
+  private static DriveSubsystem driveSubsystem;
+
+  @BeforeAll
+  static void setUp() {
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported(),
+        "JVM does not report thread allocation");
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    simulation = new SwerveSimulation();
+    driveSubsystem = simulation.getDriveSubsystem();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    if (simulation != null) {
+      simulation.close();
+    }
+  }
+
+  @Test
+  void drivePeriodic() {
+    assertWithinBudget("DriveSubsystem.periodic()", kPeriodicBudget, driveSubsystem::periodic);
+  }
+
+  @Test
+  void drive() {
+    assertWithinBudget("DriveSubsystem.drive()", kDriveBudget,
+        () -> driveSubsystem.drive(1.0, 0.5, 0.25));
+  }
+
+  @Test
+  void move() {
+    assertWithinBudget("DriveSubsystem.move()", kMoveBudget,
+        () -> driveSubsystem.move(1.0, 0.5, 0.25, true));
+  }
+
+  @Test
+  void trajectoryExecute() {
+    var trajectory = TrajectoryGenerator.generateTrajectory(ActivityCommandGroup.kStartPose,
+        ActivityCommandGroup.kWaypoints, ActivityCommandGroup.kEndPose,
+        ActivityCommandGroup.getTrajectoryConfig());
+    var command = new DriveTrajectoryCommand(driveSubsystem,
+        new TrapperSubsystem("http://localhost:3003", false), trajectory, new HashMap<>());
+    command.initialize();
+    assertWithinBudget("DriveTrajectoryCommand.execute()", kTrajectoryExecuteBudget,
+        command::execute);
+    command.end(true);
+  }
+
+  @Test
+  void teleopDriveCommand() {
+    // deflect the sticks past the deadband so the command drives
+    DriverStationSim.setJoystickAxisCount(0, 7);
+    DriverStationSim.setJoystickAxis(0, Axis.LEFT_X.id, 0.5);
+    DriverStationSim.setJoystickAxis(0, Axis.LEFT_Y.id, 0.5);
+    DriverStationSim.setJoystickAxis(0, Axis.RIGHT_Y.id, 0.5);
+    DriverStationSim.notifyNewData();
+    var command = RobotContainer.createDriveCommand(driveSubsystem, new Joystick(0),
+        new LoopProfiler().getInputLatency());
+    assertWithinBudget("teleop drive command", kTeleopDriveBudget, command::execute);
+  }
+
+  private static void assertWithinBudget(String path, long budget, Runnable call) {
+    for (int i = 0; i < kWarmupCalls; i++) {
+      call.run();
+    }
+    long threadId = Thread.currentThread().getId();
+    long start = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < kMeasuredCalls; i++) {
+      call.run();
+    }
+    long bytesPerCall = (threadBean.getThreadAllocatedBytes(threadId) - start) / kMeasuredCalls;
+    assertTrue(bytesPerCall <= budget,
+        () -> path + " allocates " + bytesPerCall + " bytes per call, over its budget of "
+            + budget);
+  }
+}
@@ -0,0 +1,149 @@
+package frc.robot.kinematics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.wpilibj.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link QuadSwerveKinematics} matches the WPILib kinematics it replaces, for the
+ * robot's wheel locations and for an off-center layout.
+ */
+class QuadSwerveKinematicsTest {
+
+  static final double kEpsilon = 1e-9;
+  static final int kCases = 1_000;
+
+  private static final Translation2d[] kOffCenter = {
+      new Translation2d(0.4, 0.3), new Translation2d(0.35, -0.25),
+      new Translation2d(-0.2, 0.3), new Translation2d(-0.3, -0.2)
+  };
+
+  @Test
+  void inverseMatchesWpilib() {
+    for (var wheels : new Translation2d[][]{DriveConstants.getWheelLocationMeters(), kOffCenter}) {
+      var expected = new SwerveDriveKinematics(wheels);
+      var actual = new QuadSwerveKinematics(wheels);
+      var random = new Random(2021);
+      double[] speeds = new double[4];
+      double[] angles = new double[4];
+      for (int n = 0; n < kCases; n++) {
+        double vx = random.nextGaussian() * 3.0;
+        double vy = random.nextGaussian() * 3.0;
+        double omega = random.nextGaussian() * 6.0;
+        double heading = (random.nextDouble() * 2.0 - 1.0) * Math.PI;
+
+        actual.toModuleStates(vx, vy, omega, speeds, angles);
+        assertStates(expected.toSwerveModuleStates(new ChassisSpeeds(vx, vy, omega)), speeds,
+            angles);
+
+        actual.toModuleStatesFieldRelative(vx, vy, omega, heading, speeds, angles);
+        assertStates(expected.toSwerveModuleStates(ChassisSpeeds.fromFieldRelativeSpeeds(vx, vy,
+            omega, new Rotation2d(heading))), speeds, angles);
+      }
+    }
+  }
+
+  @Test
+  void zeroSpeedPointsForward() {
+    var actual = new QuadSwerveKinematics(kOffCenter);
+    double[] speeds = new double[4];
+    double[] angles = {1.0, 1.0, 1.0, 1.0};
+    actual.toModuleStates(0.0, 0.0, 0.0, speeds, angles);
+    assertStates(new SwerveDriveKinematics(kOffCenter)
+        .toSwerveModuleStates(new ChassisSpeeds()), speeds, angles);
+  }
+
+  @Test
+  void desaturateMatchesWpilib() {
+    var random = new Random(2021);
+    for (int n = 0; n < kCases; n++) {
+      var states = new SwerveModuleState[4];
+      double[] speeds = new double[4];
+      double[] angles = new double[4];
+      for (int i = 0; i < 4; i++) {
+        // WPILib uses the largest signed speed, so only non-negative speeds match, see desaturate
+        speeds[i] = Math.abs(random.nextGaussian()) * 4.0;
+        states[i] = new SwerveModuleState(speeds[i], new Rotation2d());
+      }
+      SwerveDriveKinematics.normalizeWheelSpeeds(states, 3.0);
+      QuadSwerveKinematics.desaturate(speeds, 3.0);
+      assertStates(states, speeds, angles);
+    }
+  }
+
+  @Test
+  void desaturateScalesByLargestMagnitude() {
+    double[] speeds = {-6.0, 3.0, 1.5, 0.0};
+    QuadSwerveKinematics.desaturate(speeds, 3.0);
+    assertEquals(-3.0, speeds[0], kEpsilon);
+    assertEquals(1.5, speeds[1], kEpsilon);
+    assertEquals(0.75, speeds[2], kEpsilon);
+    assertEquals(0.0, speeds[3], kEpsilon);
+  }
+
+  @Test
+  void optimizeMatchesWpilib() {
+    var random = new Random(2021);
+    for (int n = 0; n < kCases; n++) {
+      double[] speeds = new double[4];
+      double[] angles = new double[4];
+      double[] current = new double[4];
+      var expected = new SwerveModuleState[4];
+      for (int i = 0; i < 4; i++) {
+        speeds[i] = random.nextGaussian() * 3.0;
+        angles[i] = (random.nextDouble() * 2.0 - 1.0) * Math.PI;
+        current[i] = (random.nextDouble() * 2.0 - 1.0) * Math.PI;
+        expected[i] = SwerveModuleState.optimize(
+            new SwerveModuleState(speeds[i], new Rotation2d(angles[i])),
+            new Rotation2d(current[i]));
+      }
+      QuadSwerveKinematics.optimize(speeds, angles, current);
+      assertStates(expected, speeds, angles);
+    }
+  }
+
+  @Test
+  void forwardMatchesWpilib() {
+    for (var wheels : new Translation2d[][]{DriveConstants.getWheelLocationMeters(), kOffCenter}) {
+      var expected = new SwerveDriveKinematics(wheels);
+      var actual = new QuadSwerveKinematics(wheels);
+      var random = new Random(2021);
+      double[] speeds = new double[4];
+      double[] angles = new double[4];
+      double[] chassis = new double[3];
+      var states = new SwerveModuleState[4];
+      for (int n = 0; n < kCases; n++) {
+        for (int i = 0; i < 4; i++) {
+          speeds[i] = random.nextGaussian() * 3.0;
+          angles[i] = (random.nextDouble() * 2.0 - 1.0) * Math.PI;
+          states[i] = new SwerveModuleState(speeds[i], new Rotation2d(angles[i]));
+        }
+        var speedsExpected = expected.toChassisSpeeds(states);
+        actual.toChassisSpeeds(speeds, angles, chassis);
+        assertEquals(speedsExpected.vxMetersPerSecond, chassis[QuadSwerveKinematics.VX],
+            kEpsilon);
+        assertEquals(speedsExpected.vyMetersPerSecond, chassis[QuadSwerveKinematics.VY],
+            kEpsilon);
+        assertEquals(speedsExpected.omegaRadiansPerSecond, chassis[QuadSwerveKinematics.OMEGA],
+            kEpsilon);
+      }
+    }
+  }
+
+  private static void assertStates(SwerveModuleState[] expected, double[] speeds,
+      double[] angles) {
+    for (int i = 0; i < 4; i++) {
+      assertEquals(expected[i].speedMetersPerSecond, speeds[i], kEpsilon);
+      // compare on the circle, -pi and pi are the same azimuth
+      double difference = expected[i].angle.getRadians() - angles[i];
+      assertEquals(0.0, Math.atan2(Math.sin(difference), Math.cos(difference)), kEpsilon);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package frc.robot.recorder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.strykeforce.telemetry.measurable.Measurable;
+import org.strykeforce.telemetry.measurable.Measure;
+
+/**
+ * Records through a {@link FlightRecorder} with small segments, then reads the segments back with
+ * {@link FlightLogReader} and compares every record and the exported CSV and Trapper output.
+ */
+class FlightRecorderTest {
+
+  static final List<String> kColumns = List.of("x", "y", "z");
+  static final int kRecordsPerSegment = 10;
+  static final int kRecords = 25;
+  static final long kPeriodMicros = 20_000;
+
+  private long written;
+
+  @Test
+  void roundTripsAcrossSegments() throws Exception {
+    var directory = Files.createTempDirectory("flight");
+    record(directory, kColumns, kRecords);
+
+    var segments = segments(directory, 3);
+    assertEquals(List.of(10, 10, 5), List.of(segments.get(0).getRecordCount(),
+        segments.get(1).getRecordCount(), segments.get(2).getRecordCount()));
+    long record = 0;
+    for (FlightLogReader segment : segments) {
+      assertEquals(List.of("Test/x", "Test/y", "Test/z"), segment.getColumns());
+      for (int i = 0; i < segment.getRecordCount(); i++, record++) {
+        assertEquals(record * kPeriodMicros, segment.getTimestamp(i));
+        for (int column = 0; column < kColumns.size(); column++) {
+          assertEquals(value(record, column), segment.get(i, column), "record " + record);
+        }
+      }
+    }
+  }
+
+  @Test
+  void exportsSegmentsAsOneTable() throws Exception {
+    var directory = Files.createTempDirectory("flight");
+    record(directory, kColumns, kRecords);
+    var segments = segments(directory, 3);
+
+    var csv = new StringWriter();
+    FlightLogReader.writeCsv(segments, csv);
+    String[] lines = csv.toString().split("\n");
+    assertEquals(1 + kRecords, lines.length);
+    assertEquals("timestamp_us,Test/x,Test/y,Test/z", lines[0]);
+    assertEquals("480000,240.0,241.0,242.0", lines[kRecords]);
+
+    var trapper = new StringWriter();
+    FlightLogReader.writeTrapper(segments, trapper);
+    String json = trapper.toString().trim();
+    assertTrue(json.startsWith("{\"measures\":[\"Test/x\",\"Test/y\",\"Test/z\"],\"traces\":["));
+    assertTrue(json.endsWith("{\"time\":480,\"data\":[240.0,241.0,242.0]}]}"));
+    assertEquals(1, count(json, "\"measures\""));
+    assertEquals(kRecords, count(json, "\"time\""));
+  }
+
+  @Test
+  void rejectsSegmentsWithDifferentColumns() throws Exception {
+    var first = Files.createTempDirectory("flight");
+    record(first, kColumns, 1);
+    var second = Files.createTempDirectory("flight");
+    record(second, List.of("x", "y"), 1);
+
+    var segments = List.of(segments(first, 1).get(0), segments(second, 1).get(0));
+    assertThrows(IOException.class, () -> FlightLogReader.writeCsv(segments, new StringWriter()));
+    assertThrows(IOException.class,
+        () -> FlightLogReader.writeTrapper(segments, new StringWriter()));
+  }
+
+  /**
+   * Records {@code count} records of one measurable per column, waiting out any records dropped
+   * while the next segment is prepared.
+   */
+  private void record(Path directory, List<String> columns, int count) throws Exception {
+    written = 0;
+    // header of magic, version, counts and names padded to 8 bytes, then timestamp and columns
+    int headerBytes = 16;
+    for (String column : columns) {
+      headerBytes += 2 + ("Test/" + column).length();
+    }
+    headerBytes = (headerBytes + 7) & ~7;
+    int segmentBytes = headerBytes + kRecordsPerSegment * 8 * (1 + columns.size());
+
+    var recorder = new FlightRecorder(directory, segmentBytes, 8, () -> written * kPeriodMicros);
+    for (int column = 0; column < columns.size(); column++) {
+      recorder.register(new ColumnMeasurable(columns.get(column), column,
+          column == columns.size() - 1));
+    }
+    recorder.start();
+    while (written < count) {
+      long dropped = recorder.getDroppedRecords();
+      recorder.record();
+      if (recorder.getDroppedRecords() > dropped) {
+        Thread.sleep(1);
+      }
+    }
+  }
+
+  /**
+   * Opens the first {@code count} segments, which are the ones holding records.
+   */
+  private static List<FlightLogReader> segments(Path directory, int count) throws IOException {
+    List<FlightLogReader> segments = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      segments.add(new FlightLogReader(directory.resolve(String.format("%s%06d%s",
+          FlightRecorder.kSegmentPrefix, i, FlightRecorder.kSegmentSuffix))));
+    }
+    return segments;
+  }
+
+  private static double value(long record, int column) {
+    return record * 10.0 + column;
+  }
+
+  private static int count(String text, String part) {
+    int count = 0;
+    for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * One column of the record; the last column counts the record as written.
+   */
+  private final class ColumnMeasurable implements Measurable {
+
+    private final String name;
+    private final int column;
+    private final boolean last;
+
+    ColumnMeasurable(String name, int column, boolean last) {
+      this.name = name;
+      this.column = column;
+      this.last = last;
+    }
+
+    @NotNull
+    @Override
+    public String getDescription() {
+      return "Test";
+    }
+
+    @Override
+    public int getDeviceId() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public Set<Measure> getMeasures() {
+      return Set.of(new Measure(name, () -> {
+        double value = value(written, column);
+        if (last) {
+          written++;
+        }
+        return value;
+      }));
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package frc.robot.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import frc.robot.commands.ActivityCommandGroup;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Follows the {@link ActivityCommandGroup} trajectory through the simulated drive and fails when
+ * tracking error grows past what the controller tuning achieves today.
+ */
+class SwerveSimulationTest {
+
+  static final int kRuns = 20;
+  static final double kMaxErrorMeters = 0.25;
+  static final double kRmsErrorMeters = 0.10;
+  static final double kFinalErrorMeters = 0.10;
+
+  private static SwerveSimulation simulation;
+  private static Trajectory trajectory;
+
+  @BeforeAll
+  static void setUp() {
+    simulation = new SwerveSimulation();
+    trajectory = TrajectoryGenerator.generateTrajectory(ActivityCommandGroup.kStartPose,
+        ActivityCommandGroup.kWaypoints, ActivityCommandGroup.kEndPose,
+        ActivityCommandGroup.getTrajectoryConfig());
+  }
+
+  @AfterAll
+  static void tearDown() {
+    if (simulation != null) {
+      simulation.close();
+    }
+  }
+
+  @Test
+  void tracksActivityTrajectory() {
+    SwerveSimulation.TrackingError first = null;
+    for (int run = 0; run < kRuns; run++) {
+      var error = simulation.followTrajectory(trajectory);
+      String message = "run " + run + ": " + error;
+      assertTrue(error.maxMeters < kMaxErrorMeters, message);
+      assertTrue(error.rmsMeters < kRmsErrorMeters, message);
+      assertTrue(error.finalMeters < kFinalErrorMeters, message);
+      if (first == null) {
+        first = error;
+      } else {
+        // the simulation is stepped, so every run after a reset should track identically
+        assertEquals(first.rmsMeters, error.rmsMeters, 1e-6, message);
+      }
+    }
+  }
+}
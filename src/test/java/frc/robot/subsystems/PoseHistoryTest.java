@@ -0,0 +1,174 @@
+package frc.robot.subsystems;
+
+import static frc.robot.subsystems.PoseHistory.HEADING;
+import static frc.robot.subsystems.PoseHistory.X;
+import static frc.robot.subsystems.PoseHistory.Y;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PoseHistoryTest {
+
+  static final double kEpsilon = 1e-9;
+
+  private final double[] pose = new double[3];
+
+  @Test
+  void interpolatesBetweenSamples() {
+    var history = new PoseHistory(8);
+    history.record(0.0, 0.0, 0.0, 0.0);
+    history.record(1.0, 1.0, 2.0, 0.5);
+
+    assertTrue(history.getPoseAt(0.5, pose));
+    assertPose(0.5, 1.0, 0.25);
+    assertTrue(history.getPoseAt(0.0, pose));
+    assertPose(0.0, 0.0, 0.0);
+  }
+
+  @Test
+  void interpolatesHeadingTheShortWayAcrossWrap() {
+    var history = new PoseHistory(8);
+    history.record(0.0, 0.0, 0.0, 3.0);
+    history.record(1.0, 0.0, 0.0, -3.0);
+
+    assertTrue(history.getPoseAt(0.5, pose));
+    // halfway between 3.0 and -3.0 through pi, not through zero
+    assertEquals(0.0, wrap(pose[HEADING] - Math.PI), kEpsilon);
+  }
+
+  @Test
+  void answersOnlyWithinHistory() {
+    var history = new PoseHistory(8);
+    assertFalse(history.getPoseAt(0.0, pose), "empty");
+
+    line(history, 1, 4);
+    assertFalse(history.getPoseAt(0.5, pose), "before oldest");
+    assertTrue(history.getPoseAt(9.0, pose), "after newest");
+    assertPose(4.0, 0.0, 0.0);
+  }
+
+  @Test
+  void ignoresOutOfOrderSamples() {
+    var history = new PoseHistory(8);
+    line(history, 0, 2);
+    history.record(1.5, 100.0, 0.0, 0.0);
+    history.record(2.0, 100.0, 0.0, 0.0);
+
+    assertEquals(3, history.size());
+    assertTrue(history.getPoseAt(1.5, pose));
+    assertPose(1.5, 0.0, 0.0);
+  }
+
+  @Test
+  void searchesAcrossRingBoundaryAfterWrap() {
+    var history = new PoseHistory(4);
+    // 0 and 1 are overwritten, 2 to 5 remain and wrap around the end of the arrays
+    line(history, 0, 5);
+    assertEquals(4, history.size());
+
+    assertFalse(history.getPoseAt(1.5, pose));
+    for (double time : new double[] {2.0, 2.5, 3.0, 3.75, 4.5, 5.0}) {
+      assertTrue(history.getPoseAt(time, pose), "time " + time);
+      assertPose(time, 0.0, 0.0);
+    }
+  }
+
+  @Test
+  void correctionAtSampleReplaysMotionRotated() {
+    var history = new PoseHistory(8);
+    line(history, 0, 4);
+
+    // at t = 2 the robot was really at (2, 1) facing +y, so later motion along x becomes +y
+    assertTrue(history.applyCorrection(2.0, 2.0, 1.0, Math.PI / 2, pose));
+    assertPose(2.0, 3.0, Math.PI / 2);
+
+    assertTrue(history.getPoseAt(1.0, pose));
+    assertPose(1.0, 0.0, 0.0);
+    assertTrue(history.getPoseAt(2.0, pose));
+    assertPose(2.0, 1.0, Math.PI / 2);
+    assertTrue(history.getPoseAt(3.0, pose));
+    assertPose(2.0, 2.0, Math.PI / 2);
+  }
+
+  @Test
+  void correctionBetweenSamplesKeepsEarlierSample() {
+    var history = new PoseHistory(8);
+    line(history, 0, 4);
+
+    assertTrue(history.applyCorrection(2.5, 10.0, 0.0, 0.0, pose));
+    assertPose(11.5, 0.0, 0.0);
+
+    assertTrue(history.getPoseAt(2.0, pose));
+    assertPose(2.0, 0.0, 0.0);
+    assertTrue(history.getPoseAt(3.0, pose));
+    assertPose(10.5, 0.0, 0.0);
+  }
+
+  @Test
+  void correctionAfterNewestReturnsCorrectedPose() {
+    var history = new PoseHistory(8);
+    line(history, 0, 4);
+
+    assertTrue(history.applyCorrection(4.5, 7.0, 8.0, 4.0, pose));
+    assertPose(7.0, 8.0, wrap(4.0));
+    assertTrue(history.getPoseAt(4.0, pose));
+    assertPose(4.0, 0.0, 0.0);
+  }
+
+  @Test
+  void correctionWrapsHeadings() {
+    var history = new PoseHistory(8);
+    for (int t = 0; t <= 3; t++) {
+      history.record(t, t, 0.0, 3.0);
+    }
+
+    assertTrue(history.applyCorrection(1.0, 1.0, 0.0, 3.5, pose));
+    assertEquals(wrap(3.5), pose[HEADING], kEpsilon);
+    assertTrue(pose[HEADING] < 0.0, "wrapped into (-pi, pi]");
+  }
+
+  @Test
+  void correctionOutsideHistoryChangesNothing() {
+    var history = new PoseHistory(8);
+    line(history, 1, 4);
+
+    assertFalse(history.applyCorrection(0.5, 9.0, 9.0, 1.0, pose));
+    assertTrue(history.getPoseAt(4.0, pose));
+    assertPose(4.0, 0.0, 0.0);
+  }
+
+  @Test
+  void correctionAtOldestAfterWrapRewritesWholeRing() {
+    var history = new PoseHistory(4);
+    line(history, 0, 5);
+
+    assertTrue(history.applyCorrection(2.0, 2.0, 0.0, Math.PI, pose));
+    assertPose(-1.0, 0.0, Math.PI);
+    for (int t = 2; t <= 5; t++) {
+      assertTrue(history.getPoseAt(t, pose));
+      assertPose(4.0 - t, 0.0, Math.PI);
+    }
+  }
+
+  /**
+   * Records one sample a second from {@code from} to {@code to} seconds, driving along x at 1 m/s
+   * with heading zero.
+   */
+  private static void line(PoseHistory history, int from, int to) {
+    for (int t = from; t <= to; t++) {
+      history.record(t, t, 0.0, 0.0);
+    }
+  }
+
+  private void assertPose(double x, double y, double heading) {
+    assertEquals(x, pose[X], kEpsilon, "x");
+    assertEquals(y, pose[Y], kEpsilon, "y");
+    assertEquals(0.0, wrap(pose[HEADING] - heading), kEpsilon, "heading");
+  }
+
+  private static double wrap(double radians) {
+    return Math.atan2(Math.sin(radians), Math.cos(radians));
+  }
+}
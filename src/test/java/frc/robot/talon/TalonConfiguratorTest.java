@@ -0,0 +1,132 @@
+package frc.robot.talon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.LimitSwitchSource;
+import com.ctre.phoenix.motorcontrol.can.TalonSRXConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class TalonConfiguratorTest {
+
+  static final int kTimeoutMs = 10;
+  static final int kReadTimeoutMs = 50;
+
+  @Test
+  void skipsWriteWhenConfigsMatch() {
+    var device = device(ErrorCode.OK, current -> current.peakCurrentLimit = 40);
+    var results = new TalonConfigurator(kTimeoutMs, kReadTimeoutMs).add(device, desired()).apply();
+
+    assertFalse(results.get(0).written);
+    assertEquals(ErrorCode.OK, results.get(0).error);
+    verify(device).getAllConfigs(any(), eq(kReadTimeoutMs));
+    verify(device, never()).configFactoryDefault(anyInt());
+    verify(device, never()).configAllSettings(any(), anyInt());
+    verify(device, never()).configSetting(any(), any(), anyInt());
+  }
+
+  @Test
+  void writesOnlyDifferingSettings() {
+    var device = device(ErrorCode.OK, current -> {
+      current.peakCurrentLimit = 30;
+      current.slot0.kP = 1.0;
+    });
+    var config = desired();
+    var results = new TalonConfigurator(kTimeoutMs, kReadTimeoutMs).add(device, config).apply();
+
+    assertTrue(results.get(0).written);
+    assertEquals(List.of("peakCurrentLimit", "slot0.kP"), sorted(results.get(0).differences));
+    verify(device).configSetting("peakCurrentLimit", config, kTimeoutMs);
+    verify(device).configSetting("slot0.kP", config, kTimeoutMs);
+    verify(device, never()).configFactoryDefault(anyInt());
+    verify(device, never()).configAllSettings(any(), anyInt());
+  }
+
+  @Test
+  void writesAllSettingsWhenDifferenceHasNoSettingCall() {
+    var device = device(ErrorCode.OK, current -> {
+      current.peakCurrentLimit = 30;
+      current.forwardLimitSwitchSource = LimitSwitchSource.Deactivated;
+    });
+    var config = desired();
+    var results = new TalonConfigurator(kTimeoutMs, kReadTimeoutMs).add(device, config).apply();
+
+    assertTrue(results.get(0).written);
+    verify(device).configFactoryDefault(kTimeoutMs);
+    verify(device).configAllSettings(config, kTimeoutMs);
+    verify(device, never()).configSetting(any(), any(), anyInt());
+  }
+
+  @Test
+  void ignoresFixedPointReadBackError() {
+    // one fixed point step off, more than a relative tolerance allows near zero
+    var device = device(ErrorCode.OK, current -> {
+      current.peakCurrentLimit = 40;
+      current.slot0.kF = 1.0 / (1 << 22);
+      current.nominalOutputForward = 1.0 / 1023;
+      current.voltageCompSaturation = 12.0 - 1.0 / 256;
+    });
+    var config = desired();
+    config.slot0.kF = 0.0;
+    config.nominalOutputForward = 0.0;
+    config.voltageCompSaturation = 12.0;
+    var results = new TalonConfigurator(kTimeoutMs, kReadTimeoutMs).add(device, config).apply();
+
+    assertFalse(results.get(0).written, "differences " + results.get(0).differences);
+  }
+
+  @Test
+  void writesWhenReadFails() {
+    var device = device(ErrorCode.SigNotUpdated, current -> current.peakCurrentLimit = 40);
+    var config = desired();
+    var results = new TalonConfigurator(kTimeoutMs, kReadTimeoutMs).add(device, config).apply();
+
+    assertTrue(results.get(0).written);
+    assertEquals(ErrorCode.OK, results.get(0).error);
+    verify(device).configFactoryDefault(kTimeoutMs);
+    verify(device).configAllSettings(config, kTimeoutMs);
+  }
+
+  private static TalonSRXConfiguration desired() {
+    var config = new TalonSRXConfiguration();
+    config.peakCurrentLimit = 40;
+    return config;
+  }
+
+  private static List<String> sorted(List<String> differences) {
+    var sorted = new ArrayList<>(differences);
+    sorted.sort(null);
+    return sorted;
+  }
+
+  /**
+   * Returns a device whose read back configuration is the default changed by {@code readBack}.
+   */
+  private static TalonConfigDevice device(ErrorCode readError,
+      Consumer<TalonSRXConfiguration> readBack) {
+    var device = mock(TalonConfigDevice.class);
+    when(device.getName()).thenReturn("TalonSRX 0");
+    when(device.newConfiguration()).thenReturn(new TalonSRXConfiguration());
+    when(device.getAllConfigs(any(), anyInt())).thenAnswer(invocation -> {
+      TalonSRXConfiguration config = invocation.getArgument(0);
+      readBack.accept(config);
+      return readError;
+    });
+    when(device.configFactoryDefault(anyInt())).thenReturn(ErrorCode.OK);
+    when(device.configAllSettings(any(), anyInt())).thenReturn(ErrorCode.OK);
+    when(device.configSetting(any(), any(), anyInt())).thenReturn(ErrorCode.OK);
+    return device;
+  }
+}
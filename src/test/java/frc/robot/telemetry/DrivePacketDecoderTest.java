@@ -0,0 +1,103 @@
+package frc.robot.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DrivePacketDecoderTest {
+
+  @Test
+  void roundTripsKeyframesAndDeltas() {
+    var encoder = new DrivePacketPublisher.Encoder();
+    var decoder = new DrivePacketDecoder();
+    var values = new double[DrivePacket.FIELD_COUNT];
+    var random = new Random(17);
+    int keyframes = 0;
+
+    for (int record = 0; record < 500; record++) {
+      for (int i = 0; i < DrivePacket.FIELD_COUNT; i++) {
+        values[i] += random.nextGaussian() * 0.01;
+        if (DrivePacket.isAngle(i)) {
+          values[i] = DrivePacket.wrap(values[i]);
+        }
+      }
+      // an occasional jump too large for a delta forces a keyframe
+      if (record % 97 == 96) {
+        values[DrivePacket.X] += 100.0;
+      }
+      long timestamp = 20_000L * record;
+      byte[] packet = encoder.encode(values, true, timestamp);
+      if (encoder.isKeyframe()) {
+        keyframes++;
+      }
+
+      assertTrue(decoder.decode(packet), "record " + record);
+      assertEquals(record, decoder.getSequence());
+      assertEquals(timestamp, decoder.getTimestampMicros());
+      assertTrue(decoder.hasReference());
+      for (int i = 0; i < DrivePacket.FIELD_COUNT; i++) {
+        double tolerance = DrivePacket.SCALE[i] / 2 + 1e-12;
+        double error = decoder.get(i) - values[i];
+        if (DrivePacket.isAngle(i)) {
+          error = DrivePacket.wrap(error);
+        }
+        assertEquals(0.0, error, tolerance, "record " + record + " field " + i);
+      }
+    }
+    assertTrue(keyframes >= 500 / DrivePacketPublisher.kKeyframeInterval,
+        "keyframes " + keyframes);
+    assertTrue(keyframes < 500 / 2, "keyframes " + keyframes);
+  }
+
+  @Test
+  void decodesDeltasAfterMissedRecordsFromKeyframeEntry() {
+    var encoder = new DrivePacketPublisher.Encoder();
+    var decoder = new DrivePacketDecoder();
+    var values = new double[DrivePacket.FIELD_COUNT];
+    values[DrivePacket.REFERENCE_X] = Double.NaN;
+
+    values[DrivePacket.X] = 1.0;
+    byte[] keyframe = encoder.encode(values, false, 0).clone();
+    assertTrue(encoder.isKeyframe());
+    byte[] delta = null;
+    for (int record = 1; record < 10; record++) {
+      values[DrivePacket.X] = 1.0 + record * 0.01;
+      delta = encoder.encode(values, false, record);
+      assertFalse(encoder.isKeyframe());
+    }
+
+    // the packet entry only delivered the last delta, the keyframe comes from its own entry
+    assertFalse(decoder.decode(delta), "delta before its keyframe");
+    assertTrue(decoder.decode(keyframe));
+    assertTrue(decoder.decode(delta));
+    assertEquals(1.09, decoder.get(DrivePacket.X), DrivePacket.SCALE[DrivePacket.X]);
+    assertFalse(decoder.hasReference());
+    assertTrue(Double.isNaN(decoder.get(DrivePacket.REFERENCE_X)));
+
+    // the keyframe entry is read every loop, rereading it must not roll the values back
+    assertFalse(decoder.decode(keyframe));
+    assertEquals(1.09, decoder.get(DrivePacket.X), DrivePacket.SCALE[DrivePacket.X]);
+  }
+
+  @Test
+  void startsKeyframeWhenReferenceStarts() {
+    var encoder = new DrivePacketPublisher.Encoder();
+    var values = new double[DrivePacket.FIELD_COUNT];
+    encoder.encode(values, false, 0);
+    encoder.encode(values, false, 1);
+    assertFalse(encoder.isKeyframe());
+    encoder.encode(values, true, 2);
+    assertTrue(encoder.isKeyframe());
+  }
+
+  @Test
+  void rejectsMalformedPackets() {
+    var decoder = new DrivePacketDecoder();
+    assertFalse(decoder.decode(null));
+    assertFalse(decoder.decode(new byte[DrivePacket.HEADER_BYTES - 1]));
+    assertFalse(decoder.decode(new byte[DrivePacket.KEYFRAME_BYTES]));
+  }
+}
@@ -0,0 +1,180 @@
+package frc.robot.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.telemetry.MeasureScheduler.Priority;
+import frc.robot.telemetry.MeasureScheduler.Sampling;
+import java.util.HashSet;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.strykeforce.telemetry.measurable.Measurable;
+import org.strykeforce.telemetry.measurable.Measure;
+
+/**
+ * Ticks a {@link MeasureScheduler} against a fake clock. Fake measures count their samples and
+ * can advance the clock to spend the tick's budget.
+ */
+class MeasureSchedulerTest {
+
+  static final long kTickMicros = (long) (MeasureScheduler.kTickPeriodSeconds * 1e6);
+  static final long kBudgetMicros = (long) (MeasureScheduler.kTickBudgetSeconds * 1e6);
+
+  private long now;
+  private final MeasureScheduler scheduler = new MeasureScheduler(() -> now);
+
+  @Test
+  void samplesAtRequestedRates() {
+    var loop = new FakeMeasurable("Loop", 1, 0);
+    var normal = new FakeMeasurable("Normal", 1, 0);
+    scheduler.schedule(loop, Sampling.LOOP);
+    scheduler.schedule(normal, Sampling.NORMAL);
+    scheduler.prepare();
+
+    tick(50);
+    assertEquals(50, loop.samples[0]);
+    assertEquals(10, normal.samples[0]);
+  }
+
+  @Test
+  void dropsOverBudgetAndSamplesDroppedFirstNextTick() {
+    // each sample costs most of the budget, so only two of three fit in a tick
+    var source = new FakeMeasurable("Costly", 3, kBudgetMicros * 3 / 4);
+    scheduler.schedule(source, new Sampling(1.0 / MeasureScheduler.kTickPeriodSeconds,
+        Priority.NORMAL));
+    scheduler.prepare();
+
+    tick(1);
+    int dropped = -1;
+    for (int i = 0; i < source.samples.length; i++) {
+      if (source.samples[i] == 0) {
+        dropped = i;
+      }
+    }
+    assertTrue(dropped >= 0, "one measure dropped");
+    assertEquals(2, source.total());
+
+    tick(1);
+    assertEquals(1, source.samples[dropped], "dropped measure goes first");
+    assertEquals(4, source.total());
+
+    source.costMicros = 0;
+    report();
+    assertEquals(2.0, measure(scheduler, "Normal Dropped Samples"));
+  }
+
+  @Test
+  void shedsBelowHighPriority() {
+    var high = new FakeMeasurable("High", 1, 0);
+    var low = new FakeMeasurable("Low", 1, 0);
+    scheduler.schedule(high, new Sampling(1.0, Priority.HIGH));
+    scheduler.schedule(low, new Sampling(1.0, Priority.LOW));
+    scheduler.prepare();
+
+    scheduler.setShedding(true);
+    tick(1);
+    assertEquals(1, high.samples[0]);
+    assertEquals(0, low.samples[0]);
+
+    // still due, so it's sampled as soon as shedding stops
+    scheduler.setShedding(false);
+    tick(1);
+    assertEquals(1, high.samples[0]);
+    assertEquals(1, low.samples[0]);
+  }
+
+  @Test
+  void keepsSamplingWhenSupplierThrows() {
+    var failing = new FakeMeasurable("Failing", 1, 0);
+    failing.failing = true;
+    var good = new FakeMeasurable("Good", 1, 0);
+    scheduler.schedule(failing, Sampling.LOOP);
+    var scheduled = scheduler.schedule(good, Sampling.LOOP);
+    scheduler.prepare();
+
+    tick(3);
+    assertEquals(3, good.samples[0]);
+    assertEquals(3.0, measure(scheduled, "Good 0"));
+
+    report();
+    assertTrue(measure(scheduler, "High Dropped Samples") >= 3.0);
+  }
+
+  /**
+   * Runs ticks one period apart, starting now.
+   */
+  private void tick(int count) {
+    for (int i = 0; i < count; i++) {
+      scheduler.tick();
+      now = (now / kTickMicros + 1) * kTickMicros;
+    }
+  }
+
+  /**
+   * Ticks once after a full report period so the scheduler's own measures are updated.
+   */
+  private void report() {
+    now += (long) (MeasureScheduler.kReportPeriodSeconds * 1e6);
+    scheduler.tick();
+  }
+
+  private static double measure(Measurable measurable, String name) {
+    for (Measure measure : measurable.getMeasures()) {
+      if (measure.getName().equals(name)) {
+        return measure.getMeasurement().getAsDouble();
+      }
+    }
+    throw new AssertionError("no measure named " + name);
+  }
+
+  private final class FakeMeasurable implements Measurable {
+
+    final String description;
+    final int[] samples;
+    long costMicros;
+    boolean failing;
+
+    FakeMeasurable(String description, int measureCount, long costMicros) {
+      this.description = description;
+      samples = new int[measureCount];
+      this.costMicros = costMicros;
+    }
+
+    int total() {
+      int total = 0;
+      for (int count : samples) {
+        total += count;
+      }
+      return total;
+    }
+
+    @NotNull
+    @Override
+    public String getDescription() {
+      return description;
+    }
+
+    @Override
+    public int getDeviceId() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public Set<Measure> getMeasures() {
+      Set<Measure> measures = new HashSet<>();
+      for (int i = 0; i < samples.length; i++) {
+        int measure = i;
+        measures.add(new Measure(description + " " + i, () -> {
+          if (failing) {
+            throw new IllegalStateException("CAN read failed");
+          }
+          now += costMicros;
+          return ++samples[measure];
+        }));
+      }
+      return measures;
+    }
+  }
+}
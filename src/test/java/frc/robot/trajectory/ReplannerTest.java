@@ -0,0 +1,75 @@
+package frc.robot.trajectory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.commands.ActivityCommandGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Replans the {@link ActivityCommandGroup} trajectory after a bump halfway along, as {@code
+ * ReplanBenchmark} does. Replan time is measured by the benchmark, not here, since a desktop
+ * timing says nothing about the roboRIO budget.
+ */
+class ReplannerTest {
+
+  private Trajectory trajectory;
+  private Replanner replanner;
+  private Translation2d position;
+  private Rotation2d tangent;
+  private double velocity;
+
+  @BeforeEach
+  void setUp() {
+    var config = ActivityCommandGroup.getTrajectoryConfig();
+    trajectory = TrajectoryGenerator.generateTrajectory(ActivityCommandGroup.kStartPose,
+        ActivityCommandGroup.kWaypoints, ActivityCommandGroup.kEndPose, config);
+    replanner = new Replanner(ActivityCommandGroup.kStartPose, ActivityCommandGroup.kWaypoints,
+        ActivityCommandGroup.kEndPose, config);
+
+    var reference = trajectory.sample(trajectory.getTotalTimeSeconds() / 2.0);
+    position = reference.poseMeters.getTranslation().plus(new Translation2d(0.0, 0.4));
+    tangent = reference.poseMeters.getRotation();
+    velocity = reference.velocityMetersPerSecond;
+    for (var state : trajectory.getStates()) {
+      if (state.timeSeconds > reference.timeSeconds) {
+        break;
+      }
+      replanner.update(state.poseMeters.getTranslation());
+    }
+  }
+
+  @Test
+  void rejoinsRegistryPathAtNextWaypoint() {
+    var replanned = replanner.replan(position, tangent, velocity,
+        DriveConstants.kReplanMinSegmentMeters);
+    var start = replanned.getStates().get(0).poseMeters.getTranslation();
+    assertEquals(0.0, start.getDistance(position), 1e-9);
+
+    // past the joining segment every point is one the registry trajectory passes through
+    var waypoint = ActivityCommandGroup.kWaypoints.get(replanner.getNextWaypoint() - 1);
+    boolean joined = false;
+    for (var state : replanned.getStates()) {
+      var point = state.poseMeters.getTranslation();
+      joined |= point.getDistance(waypoint) < 1e-9;
+      if (joined) {
+        assertEquals(0.0, distanceToPath(point), 1e-9, "replanned point " + point);
+      }
+    }
+    assertTrue(joined, "replanned path passes through the next waypoint");
+  }
+
+  private double distanceToPath(Translation2d point) {
+    double min = Double.POSITIVE_INFINITY;
+    for (var state : trajectory.getStates()) {
+      min = Math.min(min, point.getDistance(state.poseMeters.getTranslation()));
+    }
+    return min;
+  }
+}
@@ -0,0 +1,124 @@
+package frc.robot.trajectory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
+import frc.robot.trajectory.TrajectoryRegistry.Handle;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives a {@link TrajectoryRegistry} with a byte limit of a few trajectories. Every trajectory is
+ * a straight line of the same length, so each one costs the same number of bytes.
+ */
+class TrajectoryRegistryTest {
+
+  static final double kLengthMeters = 2.0;
+
+  private final TrajectoryConfig config = new TrajectoryConfig(2.0, 2.0);
+  private TrajectoryCache trajectoryCache;
+  private long trajectoryBytes;
+  private TrajectoryRegistry registry;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    trajectoryCache = new TrajectoryCache(Files.createTempDirectory("trajectories"));
+    var sizing = new TrajectoryRegistry(trajectoryCache, Long.MAX_VALUE);
+    trajectoryBytes = line(sizing, "sizing", 0.0).get().join().getSizeBytes();
+    sizing.shutdown();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (registry != null) {
+      registry.shutdown();
+    }
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedOverLimit() {
+    registry = new TrajectoryRegistry(trajectoryCache, 2 * trajectoryBytes);
+    var a = generated(line(registry, "a", 0.0));
+    var b = generated(line(registry, "b", 1.0));
+    assertEquals(2 * trajectoryBytes, registry.getGeneratedBytes());
+
+    // using a makes b the least recently used
+    a.get().join();
+    var c = generated(line(registry, "c", 2.0));
+
+    assertTrue(a.isReady());
+    assertFalse(b.isReady());
+    assertTrue(c.isReady());
+    assertEquals(2 * trajectoryBytes, registry.getGeneratedBytes());
+
+    // b is regenerated on request and evicts a, now the least recently used
+    generated(b);
+    assertFalse(a.isReady());
+    assertTrue(b.isReady());
+    assertTrue(c.isReady());
+    assertEquals(2 * trajectoryBytes, registry.getGeneratedBytes());
+  }
+
+  @Test
+  void keepsNewestEvenWhenOverLimit() {
+    registry = new TrajectoryRegistry(trajectoryCache, 1);
+    var a = generated(line(registry, "a", 0.0));
+    assertTrue(a.isReady());
+    assertEquals(trajectoryBytes, registry.getGeneratedBytes());
+
+    var b = generated(line(registry, "b", 1.0));
+    assertFalse(a.isReady());
+    assertTrue(b.isReady());
+    assertEquals(trajectoryBytes, registry.getGeneratedBytes());
+  }
+
+  @Test
+  void redeclaringWithNewInputsReplacesEntry() {
+    registry = new TrajectoryRegistry(trajectoryCache, 4 * trajectoryBytes);
+    var first = generated(line(registry, "a", 0.0));
+    assertSame(first, generated(line(registry, "a", 0.0)));
+    assertEquals(trajectoryBytes, registry.getGeneratedBytes());
+
+    var second = generated(line(registry, "a", 1.0));
+    assertNotSame(first, second);
+    assertSame(second, registry.getHandle("a"));
+    assertEquals(1.0, second.get().join().getInitialPose().getX(), 1e-9);
+    assertEquals(0.0, first.get().join().getInitialPose().getX(), 1e-9);
+  }
+
+  @Test
+  void rejectsUndeclaredName() {
+    registry = new TrajectoryRegistry(trajectoryCache, trajectoryBytes);
+    assertThrows(IllegalArgumentException.class, () -> registry.getHandle("missing"));
+  }
+
+  /**
+   * Declares a straight line along x starting at {@code x}.
+   */
+  private Handle line(TrajectoryRegistry registry, String name, double x) {
+    return registry.declare(name, new Pose2d(x, 0.0, new Rotation2d()), List.of(),
+        new Pose2d(x + kLengthMeters, 0.0, new Rotation2d()), config);
+  }
+
+  /**
+   * Waits until the trajectory of {@code handle} is generated and added to the cache.
+   */
+  private static Handle generated(Handle handle) {
+    handle.get().join();
+    // the cache is updated by a completion stage that may run after join returns
+    while (!handle.isReady()) {
+      Thread.onSpinWait();
+    }
+    return handle;
+  }
+}
@@ -0,0 +1,109 @@
+package frc.robot.trapper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.trapper.TrapperBundle.Encoding;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Uploads bundles to a {@link TrapperStandIn} with every encoding, with and without compression
+ * and decimation, and compares what the stand-in decoded with what was sent.
+ */
+class TrapperBundleTest {
+
+  static final double kQuantum = 1e-4;
+  static final double kDecimateHz = 10.0;
+
+  @Test
+  void roundTripsThroughStandIn() throws Exception {
+    var run = run(251);
+    try (var standIn = new TrapperStandIn()) {
+      var uploader = new TrapperUploader(standIn.getBaseUrl(),
+          Files.createTempDirectory("spool"));
+      int expected = 0;
+      for (Encoding encoding : Encoding.values()) {
+        for (boolean gzip : new boolean[] {false, true}) {
+          for (double decimateHz : new double[] {0.0, kDecimateHz}) {
+            var options = new TrapperBundle.Options(encoding, kQuantum, gzip, decimateHz);
+            uploader.uploadBundle(run, options);
+            expected++;
+            var received = standIn.getReceived();
+            assertEquals(expected, received.size());
+            assertRunEquals(run, received.get(received.size() - 1), options);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void decimatesToRateKeepingEnds() {
+    var run = run(251);
+    int[] kept = TrapperBundle.decimate(run, kDecimateHz);
+    assertEquals(0, kept[0]);
+    assertEquals(run.getTraceCount() - 1, kept[kept.length - 1]);
+    for (int i = 1; i < kept.length - 1; i++) {
+      assertTrue(run.getTime(kept[i]) - run.getTime(kept[i - 1]) >= 1000.0 / kDecimateHz - 1e-9);
+    }
+    // 5 s of 50 Hz traces at 10 Hz, plus the last trace
+    assertEquals(51, kept.length);
+  }
+
+  private static void assertRunEquals(TrapperRun sent, TrapperRun received,
+      TrapperBundle.Options options) {
+    String label = options.encoding + (options.gzip ? " gzip" : "")
+        + (options.decimateHz > 0.0 ? " decimated" : "");
+    assertEquals(sent.getActivityName(), received.getActivityName(), label);
+    assertEquals(sent.getActivityMetaJson(), received.getActivityMetaJson(), label);
+    assertEquals(sent.getActionName(), received.getActionName(), label);
+    assertEquals(sent.getActionMetaJson(), received.getActionMetaJson(), label);
+    assertEquals(sent.getMeasures(), received.getMeasures(), label);
+
+    int[] kept = TrapperBundle.decimate(sent, options.decimateHz);
+    assertEquals(kept.length, received.getTraceCount(), label);
+    for (int i = 0; i < kept.length; i++) {
+      assertEquals(sent.getTime(kept[i]), received.getTime(i), label);
+      double[] expected = sent.getData(kept[i]);
+      double[] actual = received.getData(i);
+      for (int column = 0; column < expected.length; column++) {
+        assertArrayEquals(new double[] {expected[column]}, new double[] {actual[column]},
+            tolerance(options.encoding, expected[column]), label + " trace " + i);
+      }
+    }
+  }
+
+  private static double tolerance(Encoding encoding, double value) {
+    if (!Double.isFinite(value)) {
+      return 0.0;
+    }
+    switch (encoding) {
+      case FLOAT32:
+        return Math.abs(value) * 1e-7;
+      case QUANTIZED:
+        return kQuantum / 2 + 1e-12;
+      default:
+        return 0.0;
+    }
+  }
+
+  /**
+   * Returns a run of 50 Hz traces with a smooth column, a constant column and a column with a
+   * non-finite value, which quantized encoding has to store as doubles.
+   */
+  private static TrapperRun run(int traces) {
+    int[] times = new int[traces];
+    double[][] rows = new double[traces][3];
+    for (int i = 0; i < traces; i++) {
+      times[i] = i * 20;
+      rows[i][0] = Math.sin(i * 0.05) * 3.0;
+      rows[i][1] = 1.5;
+      rows[i][2] = i == traces / 2 ? Double.NaN : i * 0.001;
+    }
+    return new TrapperRun("Bundle", "{\"robot\":\"sim\"}", "Round Trip", "{\"run\":1}",
+        List.of("traj_x", "constant", "with_nan"), times, rows);
+  }
+}
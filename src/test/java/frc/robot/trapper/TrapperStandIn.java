@@ -0,0 +1,73 @@
+package frc.robot.trapper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local stand-in for a Trapper server's {@code /bundles/} endpoint. Each bundle is decoded and
+ * kept for {@link #getReceived()} so a test can compare it with what was sent.
+ */
+final class TrapperStandIn implements AutoCloseable {
+
+  private final HttpServer server;
+  private final List<TrapperRun> received = new ArrayList<>();
+
+  /**
+   * Starts listening on an ephemeral port of localhost.
+   */
+  TrapperStandIn() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/bundles/", this::handleBundle);
+    server.start();
+  }
+
+  String getBaseUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  synchronized List<TrapperRun> getReceived() {
+    return new ArrayList<>(received);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handleBundle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!exchange.getRequestMethod().equals("POST")) {
+        respond(exchange, 405, "{\"detail\":\"method not allowed\"}");
+        return;
+      }
+      TrapperRun run;
+      try {
+        run = TrapperBundle.decode(exchange.getRequestBody().readAllBytes());
+      } catch (IOException e) {
+        respond(exchange, 400, "{\"detail\":\"bad bundle\"}");
+        return;
+      }
+      int id;
+      synchronized (this) {
+        received.add(run);
+        id = received.size();
+      }
+      respond(exchange, 201, "{\"id\":" + id + ",\"traces\":" + run.getTraceCount() + "}");
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
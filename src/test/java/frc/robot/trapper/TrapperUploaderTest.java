@@ -0,0 +1,184 @@
+package frc.robot.trapper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the uploader against a minimal Trapper server that can be told to fail requests.
+ */
+class TrapperUploaderTest {
+
+  private static final long kWaitMillis = 10_000;
+
+  @Test
+  void resumesAfterFailedTracesRequest() throws Exception {
+    var tracesRequests = new AtomicInteger();
+    try (var server = new StubServer(path -> {
+      // fail the second traces request once so the retry has to resume mid-run
+      if (path.equals("/traces/") && tracesRequests.incrementAndGet() == 2) {
+        return 503;
+      }
+      return 201;
+    })) {
+      var uploader = new TrapperUploader(server.getBaseUrl(), Files.createTempDirectory("spool"));
+      uploader.start();
+      uploader.submit(run(TrapperUploader.kTracesPerRequest * 2 + 10));
+      await(() -> server.traces.get() == TrapperUploader.kTracesPerRequest * 2 + 10);
+      uploader.stop();
+
+      assertEquals(1, server.activities.get(), "activities posted");
+      assertEquals(1, server.actions.get(), "actions posted");
+      assertEquals(4, tracesRequests.get(), "traces requests including the failed one");
+    }
+  }
+
+  @Test
+  void quarantinesRejectedRun() throws Exception {
+    try (var server = new StubServer(path -> path.equals("/activities/") ? 400 : 201)) {
+      Path directory = Files.createTempDirectory("spool");
+      var uploader = new TrapperUploader(server.getBaseUrl(), directory);
+      uploader.start();
+      uploader.submit(run(10));
+      Path rejected = directory.resolve("rejected");
+      await(() -> Files.isDirectory(rejected) && rejected.toFile().list().length == 1);
+      uploader.stop();
+
+      assertEquals(1, server.activities.get(), "rejected run isn't retried");
+      try (var spool = new UploadSpool(directory)) {
+        assertTrue(spool.isEmpty(), "rejected run is removed from the spool");
+      }
+    }
+  }
+
+  @Test
+  void discardsRecordWithInvalidLength() throws IOException {
+    Path directory = Files.createTempDirectory("spool");
+    try (var spool = new UploadSpool(directory)) {
+      for (int length : new int[] {-5, Integer.MAX_VALUE}) {
+        var header = ByteBuffer.allocate(12).putInt(length).putInt(0).putInt(0).flip();
+        Files.write(directory.resolve("spool.dat"), header.array(), StandardOpenOption.APPEND);
+        assertNull(spool.peek(), "invalid record is discarded");
+        assertTrue(spool.isEmpty());
+      }
+
+      byte[] payload = {1, 2, 3};
+      spool.append(payload);
+      assertArrayEquals(payload, spool.peek(), "spool accepts records after discarding");
+    }
+  }
+
+  @Test
+  void resumesProgressAfterReopen() throws IOException {
+    Path directory = Files.createTempDirectory("spool");
+    try (var spool = new UploadSpool(directory)) {
+      spool.append(new byte[] {1});
+      spool.peek();
+      spool.setProgress("http://localhost/activities/1/\n7");
+    }
+    try (var spool = new UploadSpool(directory)) {
+      assertEquals("http://localhost/activities/1/\n7", spool.getProgress());
+      spool.peek();
+      spool.commit();
+      assertEquals("", spool.getProgress());
+    }
+  }
+
+  private static TrapperRun run(int traces) {
+    int[] times = new int[traces];
+    double[][] rows = new double[traces][2];
+    for (int i = 0; i < traces; i++) {
+      times[i] = i * 20;
+      rows[i][0] = i;
+      rows[i][1] = -i;
+    }
+    return new TrapperRun("Test", "{}", "Upload", "{}", List.of("A", "B"), times, rows);
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + kWaitMillis;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for upload");
+      Thread.sleep(50);
+    }
+  }
+
+  private interface StatusPolicy {
+    int status(String path);
+  }
+
+  private static final class StubServer implements AutoCloseable {
+
+    final AtomicInteger activities = new AtomicInteger();
+    final AtomicInteger actions = new AtomicInteger();
+    final AtomicInteger traces = new AtomicInteger();
+    private final HttpServer server;
+    private final StatusPolicy policy;
+
+    StubServer(StatusPolicy policy) throws IOException {
+      this.policy = policy;
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", this::handle);
+      server.start();
+    }
+
+    String getBaseUrl() {
+      return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+      server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      try (exchange) {
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(exchange.getRequestBody().readAllBytes(),
+            StandardCharsets.UTF_8);
+        int status = policy.status(path);
+        String response = "{}";
+        if (status == 201) {
+          switch (path) {
+            case "/activities/":
+              activities.incrementAndGet();
+              response = "{\"url\":\"" + getBaseUrl() + "/activities/1/\"}";
+              break;
+            case "/actions/":
+              actions.incrementAndGet();
+              response = "{\"id\":7}";
+              break;
+            case "/traces/":
+              traces.addAndGet(body.split("\"action\":7").length - 1);
+              break;
+            default:
+              status = 404;
+          }
+        } else if (path.equals("/activities/")) {
+          activities.incrementAndGet();
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(bytes);
+        }
+      }
+    }
+  }
+}